@@ -0,0 +1,61 @@
+package moe.wolfgirl.probejs;
+
+import moe.wolfgirl.probejs.lang.typescript.ScriptDump;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A dump running in the background.
+ * <br>
+ * Script dumps push their progress to the job as they go, and check if the job
+ * is cancelled before each class, so a cancelled job stops soon after.
+ */
+public class DumpJob {
+    public final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final List<Consumer<ScriptDump>> progressListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Requests the job to stop.
+     *
+     * @return the future of the job, completed when it has actually stopped
+     */
+    public CompletableFuture<Void> cancel() {
+        cancelled.set(true);
+        return future;
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Throws if the job is cancelled, to be called between units of work.
+     */
+    public void checkCancelled() {
+        if (cancelled.get()) throw new CancellationException("Dump is cancelled");
+    }
+
+    /**
+     * Listens to progress changes of the script dumps, the listener is called from
+     * the dump threads, so it should be cheap and thread-safe.
+     */
+    public void onProgress(Consumer<ScriptDump> listener) {
+        progressListeners.add(listener);
+    }
+
+    public void progress(ScriptDump scriptDump) {
+        for (Consumer<ScriptDump> listener : progressListeners) {
+            listener.accept(scriptDump);
+        }
+    }
+}
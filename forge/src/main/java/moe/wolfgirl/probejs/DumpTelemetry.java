@@ -0,0 +1,165 @@
+package moe.wolfgirl.probejs;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the wall time, CPU time and allocations of each stage in a dump, so
+ * slow dumps can be traced to a stage or a plugin.
+ * <br>
+ * A stage can be timed from many threads at once. The wall time is the span from
+ * the first start to the last end, CPU time and allocations are summed over the
+ * threads that timed it, each measuring only itself. Work a timer forks to other
+ * threads is not counted unless the forked work is timed too, so stages like
+ * {@code total} under-count their CPU time. Stages can nest, so they don't add up
+ * to the total.
+ * <br>
+ * A thread timing a stage it is already timing, e.g. a worker running another emit
+ * task while joining, only counts it once.
+ */
+public class DumpTelemetry {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final ThreadLocal<Set<Stage>> TIMING = ThreadLocal.withInitial(HashSet::new);
+
+    private final Map<String, Stage> stages = new ConcurrentHashMap<>();
+    private final long started = System.nanoTime();
+
+    public Stage stage(String name) {
+        return stages.computeIfAbsent(name, Stage::new);
+    }
+
+    public Timer time(String name) {
+        return stage(name).start();
+    }
+
+    public List<Stage> getSlowest(int count) {
+        return stages.values().stream()
+                .sorted(Comparator.comparingLong(Stage::getWallNanos).reversed())
+                .limit(count)
+                .toList();
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - started;
+    }
+
+    public void writeTo(Path path) throws IOException {
+        JsonObject report = new JsonObject();
+        report.addProperty("totalMillis", getElapsedNanos() / 1_000_000);
+        JsonArray stageList = new JsonArray();
+        stages.values().stream()
+                .sorted(Comparator.comparingLong(stage -> stage.firstStart.get()))
+                .forEach(stage -> stageList.add(stage.toJson()));
+        report.add("stages", stageList);
+
+        try (JsonWriter jsonWriter = ProbeJS.GSON_WRITER.newJsonWriter(Files.newBufferedWriter(path))) {
+            jsonWriter.setIndent("    ");
+            ProbeJS.GSON_WRITER.toJson(report, JsonObject.class, jsonWriter);
+        }
+    }
+
+    private static long currentCpuTime() {
+        if (!THREADS.isCurrentThreadCpuTimeSupported()) return 0;
+        return Math.max(THREADS.getCurrentThreadCpuTime(), 0);
+    }
+
+    private static long currentAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads) {
+            return Math.max(threads.getCurrentThreadAllocatedBytes(), 0);
+        }
+        return 0;
+    }
+
+    public static class Stage {
+        public final String name;
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder items = new LongAdder();
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        public Timer start() {
+            return new Timer(this);
+        }
+
+        /**
+         * Counts the things processed in the stage, e.g. classes or files.
+         */
+        public void count(long count) {
+            items.add(count);
+        }
+
+        public long getWallNanos() {
+            long start = firstStart.get();
+            long end = lastEnd.get();
+            return end < start ? 0 : end - start;
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos.sum();
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes.sum();
+        }
+
+        private JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("name", name);
+            json.addProperty("wallMillis", getWallNanos() / 1_000_000);
+            json.addProperty("cpuMillis", getCpuNanos() / 1_000_000);
+            json.addProperty("allocatedBytes", getAllocatedBytes());
+            json.addProperty("calls", calls.sum());
+            json.addProperty("items", items.sum());
+            return json;
+        }
+    }
+
+    public static class Timer implements AutoCloseable {
+        private final Stage stage;
+        private final long wall;
+        private final long cpu;
+        private final long allocated;
+        private final boolean nested;
+
+        private Timer(Stage stage) {
+            this.stage = stage;
+            this.nested = !TIMING.get().add(stage);
+            this.wall = System.nanoTime();
+            this.cpu = currentCpuTime();
+            this.allocated = currentAllocatedBytes();
+            stage.firstStart.accumulateAndGet(wall, Math::min);
+        }
+
+        @Override
+        public void close() {
+            stage.lastEnd.accumulateAndGet(System.nanoTime(), Math::max);
+            stage.calls.increment();
+            // The outer timer of the stage on this thread already covers this one
+            if (nested) return;
+            TIMING.get().remove(stage);
+            stage.cpuNanos.add(currentCpuTime() - cpu);
+            stage.allocatedBytes.add(currentAllocatedBytes() - allocated);
+        }
+    }
+}
@@ -28,17 +28,12 @@ public class GameEvents {
                 player.sendSystemMessage(Component.translatable("probejs.hello").kjs$gold());
             }
             if (config.registryHash.get() != GameUtils.registryHash()) {
-                (new Thread(() -> {  // Don't stall the client
-                    ProbeDump dump = new ProbeDump();
-                    dump.defaultScripts();
-                    try {
-                        dump.trigger(player::sendSystemMessage);
-                        Linter.defaultLint(player::sendSystemMessage);
-                    } catch (Throwable e) {
-                        ProbeJS.LOGGER.error(e.getMessage());
-                        throw new RuntimeException(e);
-                    }
-                })).start();
+                // The dump runs in background, so it doesn't stall the client
+                ProbeDump dump = new ProbeDump();
+                dump.defaultScripts();
+                dump.allowRegistryOnly = true;
+                dump.trigger(player::sendSystemMessage)
+                        .future.thenRun(() -> Linter.defaultLint(player::sendSystemMessage));
             } else {
                 player.sendSystemMessage(
                         Component.translatable("probejs.enabled_warning")
@@ -70,12 +65,9 @@ public class GameEvents {
                                     KubeJS.PROXY.reloadClientInternal();
                                     ProbeDump dump = new ProbeDump();
                                     dump.defaultScripts();
-                                    try {
-                                        Consumer<Component> reportProgress = component -> context.getSource().sendSystemMessage(component);
-                                        dump.trigger(reportProgress);
-                                    } catch (Throwable e) {
-                                        throw new RuntimeException(e);
-                                    }
+                                    // Cancels the running dump if there is one
+                                    Consumer<Component> reportProgress = component -> context.getSource().sendSystemMessage(component);
+                                    dump.trigger(reportProgress);
                                     return Command.SINGLE_SUCCESS;
                                 })
                         )
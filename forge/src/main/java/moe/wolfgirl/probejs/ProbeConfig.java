@@ -25,6 +25,11 @@ public class ProbeConfig {
     public ConfigEntry<Long> modHash = new ConfigEntry<>("modHash", -1L);
     public ConfigEntry<Long> registryHash = new ConfigEntry<>("registryHash", -1L);
     public ConfigEntry<Boolean> isolatedScopes = new ConfigEntry<>("isolatedScope", true);
+    public ConfigEntry<Integer> dumpThreads = new ConfigEntry<>("dumpThreads", 0);
+    public ConfigEntry<Boolean> exportSnapshot = new ConfigEntry<>("exportSnapshot", false);
+    public ConfigEntry<Integer> discoveryMaxDepth = new ConfigEntry<>("discoveryMaxDepth", -1);
+    public ConfigEntry<Integer> discoveryMaxClasses = new ConfigEntry<>("discoveryMaxClasses", -1);
+    public ConfigEntry<Integer> literalUnionAliasSize = new ConfigEntry<>("literalUnionAliasSize", 32);
 
     public static class ConfigEntry<T> {
         public final String name;
@@ -2,7 +2,11 @@ package moe.wolfgirl.probejs;
 
 import moe.wolfgirl.probejs.lang.decompiler.ProbeDecompiler;
 import moe.wolfgirl.probejs.lang.java.ClassRegistry;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
+import moe.wolfgirl.probejs.lang.snapshot.DumpSnapshot;
 import moe.wolfgirl.probejs.lang.snippet.SnippetDump;
+import moe.wolfgirl.probejs.lang.transpiler.ClassDeclCache;
 import moe.wolfgirl.probejs.lang.typescript.ScriptDump;
 import moe.wolfgirl.probejs.utils.GameUtils;
 import net.minecraft.network.chat.Component;
@@ -14,19 +18,43 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class ProbeDump {
     public static final Path SNIPPET_PATH = ProbePaths.WORKSPACE_SETTINGS.resolve("probe.code-snippets");
-    public static final Path CLASS_CACHE = ProbePaths.PROBE.resolve("classes.txt");
+    public static final Path CLASS_CACHE = ProbePaths.PROBE.resolve("classes.bin");
+    public static final Path REPORT = ProbePaths.PROBE.resolve("dump_report.json");
+    public static final Path SNAPSHOT = ProbePaths.PROBE.resolve("snapshot.bin");
 
     final SnippetDump snippetDump = new SnippetDump();
     final Collection<ScriptDump> scriptDumps = new ArrayList<>();
     final ProbeDecompiler decompiler = new ProbeDecompiler();
+    final ClassDeclCache classDeclCache = new ClassDeclCache();
+    final DumpTelemetry telemetry = new DumpTelemetry();
+    /**
+     * Only rewrites the snippets and globals if the mods are the same as last
+     * dump and only the registries changed, as the classes don't depend on
+     * registry entries.
+     */
+    public boolean allowRegistryOnly = false;
     private Consumer<Component> progressReport;
+    private final AtomicInteger reportedStep = new AtomicInteger(0);
+
+    private static DumpJob running;
 
     public void addScript(ScriptDump dump) {
+        dump.transpiler.useCache(classDeclCache);
+        dump.telemetry = telemetry;
+        dump.literalUnionAliasSize = ProbeConfig.INSTANCE.literalUnionAliasSize.get();
         scriptDumps.add(dump);
     }
 
@@ -49,17 +77,49 @@ public class ProbeDump {
             decompiler.decompileContext();
             decompiler.resultSaver.writeTo(ProbePaths.DECOMPILED);
             ClassRegistry.REGISTRY.fromClasses(decompiler.resultSaver.getClasses());
+            ClassRegistry.REGISTRY.fromClazz(decompiler.resultSaver.readUnloadableClasses());
         }
 
-        report(Component.translatable("probejs.dump.cleaning"));
+        // Files of the previous mod environment are not removed here, the dump
+        // will only rewrite the changed packages and remove the stale ones
+    }
+
+    /**
+     * Rewrites the globals of each script type, the package files are left untouched.
+     *
+     * @return if the globals of all script types are written
+     */
+    private boolean onRegistryChange(DumpJob job, ForkJoinPool executor) {
+        report(Component.translatable("probejs.dump.registry_changed").kjs$aqua());
+
+        List<ForkJoinTask<?>> dumpTasks = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean(false);
         for (ScriptDump scriptDump : scriptDumps) {
-            scriptDump.removeClasses();
-            report(Component.translatable("probejs.removed_script", scriptDump.manager.scriptType.toString()));
+            scriptDump.job = job;
+            dumpTasks.add(executor.submit(() -> {
+                try {
+                    scriptDump.dumpGlobalsOnly();
+                    report(Component.translatable("probejs.dump.dump_finished", scriptDump.manager.scriptType.toString()).kjs$green());
+                } catch (CancellationException ignored) {
+                } catch (Throwable e) {
+                    failed.set(true);
+                    report(Component.translatable("probejs.dump.dump_error", scriptDump.manager.scriptType.toString()).kjs$red());
+                    ProbeJS.LOGGER.error("Failed to dump %s globals".formatted(scriptDump.manager.scriptType), e);
+                }
+            }));
         }
+        for (ForkJoinTask<?> dumpTask : dumpTasks) {
+            dumpTask.join();
+        }
+        return !failed.get();
     }
 
-    private void onRegistryChange() throws IOException {
-
+    private boolean hasPreviousDump() {
+        if (Files.notExists(CLASS_CACHE)) return false;
+        for (ScriptDump scriptDump : scriptDumps) {
+            if (Files.notExists(scriptDump.basePath.resolve(ScriptDump.MANIFEST))) return false;
+        }
+        return true;
     }
 
     private void report(Component component) {
@@ -67,67 +127,219 @@ public class ProbeDump {
         progressReport.accept(component);
     }
 
-    public void trigger(Consumer<Component> p) throws IOException {
+    /**
+     * Starts the dump in the background.
+     * <br>
+     * If another dump is still running, it is cancelled, and this one starts
+     * after it has stopped.
+     */
+    public DumpJob trigger(Consumer<Component> p) {
         progressReport = p;
+        DumpJob job = new DumpJob();
+        job.onProgress(scriptDump -> reportProgress());
+
+        CompletableFuture<Void> previous;
+        synchronized (ProbeDump.class) {
+            previous = running == null ? CompletableFuture.completedFuture(null) : running.cancel();
+            running = job;
+        }
+
+        ForkJoinPool executor = createExecutor();
+        previous.handle((result, error) -> null).thenRunAsync(() -> {
+            try {
+                Runnable saveHashes = run(job, executor);
+                if (job.isCancelled()) {
+                    job.future.cancel(false);
+                } else {
+                    saveHashes.run();
+                    reportTelemetry();
+                    job.future.complete(null);
+                }
+            } catch (CancellationException e) {
+                job.future.cancel(false);
+            } catch (Throwable e) {
+                ProbeJS.LOGGER.error("Dump failed", e);
+                job.future.completeExceptionally(e);
+            }
+        }, executor);
+        job.future.whenComplete((result, error) -> {
+            executor.shutdown();
+            if (job.isCancelled()) report(Component.translatable("probejs.dump.cancelled").kjs$gold());
+            else if (error != null) report(Component.translatable("probejs.dump.failed").kjs$red());
+        });
+        return job;
+    }
+
+    /**
+     * @return saves the hashes the dump is for, to be run only once the dump has succeeded,
+     * so a dump that failed or was cancelled is done again
+     */
+    private Runnable run(DumpJob job, ForkJoinPool executor) throws IOException {
         report(Component.translatable("probejs.dump.start").kjs$green());
 
         // Create the snippets
-        snippetDump.fromDocs();
-        snippetDump.writeTo(SNIPPET_PATH);
+        try (var ignored = telemetry.time("snippets")) {
+            snippetDump.fromDocs();
+            snippetDump.writeTo(SNIPPET_PATH);
+        }
 
         report(Component.translatable("probejs.dump.snippets_generated"));
+        job.checkCancelled();
 
-        if (GameUtils.modHash() != ProbeConfig.INSTANCE.modHash.get()) {
-            report(Component.translatable("probejs.dump.mod_changed").kjs$aqua());
-            onModChange();
-            ProbeConfig.INSTANCE.modHash.set(GameUtils.modHash());
+        long modHash = GameUtils.modHash();
+        boolean modChanged = modHash != ProbeConfig.INSTANCE.modHash.get();
+        long registryHash = GameUtils.registryHash();
+        boolean registryChanged = registryHash != ProbeConfig.INSTANCE.registryHash.get();
+
+        if (allowRegistryOnly && !modChanged && registryChanged && hasPreviousDump()) {
+            boolean written;
+            try (var ignored = telemetry.time("registry_change")) {
+                written = onRegistryChange(job, executor);
+            }
+            job.checkCancelled();
+            if (!written) return () -> {};
+            return () -> ProbeConfig.INSTANCE.registryHash.set(registryHash);
         }
 
-        if (GameUtils.registryHash() != ProbeConfig.INSTANCE.registryHash.get()) {
-            onRegistryChange();
-            ProbeConfig.INSTANCE.registryHash.set(GameUtils.registryHash());
+        if (modChanged) {
+            report(Component.translatable("probejs.dump.mod_changed").kjs$aqua());
+            try (var ignored = telemetry.time("mod_change")) {
+                onModChange();
+            }
         }
 
+        job.checkCancelled();
+
         // Fetch classes that will be used in the dump
-        ClassRegistry.REGISTRY.loadFrom(CLASS_CACHE);
-        for (ScriptDump scriptDump : scriptDumps) {
-            ClassRegistry.REGISTRY.fromClasses(scriptDump.retrieveClasses());
+        try (var ignored = telemetry.time("class_cache/read")) {
+            ClassRegistry.REGISTRY.loadFrom(CLASS_CACHE, modHash);
+        }
+        try (var ignored = telemetry.time("provide_classes")) {
+            for (ScriptDump scriptDump : scriptDumps) {
+                ClassRegistry.REGISTRY.fromClasses(scriptDump.retrieveClasses());
+            }
         }
 
-        ClassRegistry.REGISTRY.discoverClasses();
-        ClassRegistry.REGISTRY.writeTo(CLASS_CACHE);
+        try (var ignored = telemetry.time("discovery")) {
+            ClassRegistry.REGISTRY.discoverClasses(
+                    ProbeConfig.INSTANCE.discoveryMaxDepth.get(),
+                    ProbeConfig.INSTANCE.discoveryMaxClasses.get()
+            );
+            telemetry.stage("discovery").count(ClassRegistry.REGISTRY.foundClasses.size());
+        }
         report(Component.translatable("probejs.dump.class_discovered", ClassRegistry.REGISTRY.foundClasses.keySet().size()));
+        job.checkCancelled();
 
-        // Spawn a thread for each dump
-        List<Thread> dumpThreads = new ArrayList<>();
+        // Classes loaded by scripts from now on are left for the next dump
+        List<Clazz> foundClasses = ClassRegistry.REGISTRY.getFoundClasses();
+        Map<ClassPath, Integer> frontier = ClassRegistry.REGISTRY.getFrontier();
+
+        // Dump each script type as a task, the transpilation and file writing inside
+        // will fork into the same pool so the work is shared across script types
+        List<ForkJoinTask<?>> dumpTasks = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean(false);
         for (ScriptDump scriptDump : scriptDumps) {
-            Thread t = new Thread(() -> {
-                scriptDump.acceptClasses(ClassRegistry.REGISTRY.getFoundClasses());
+            scriptDump.job = job;
+            dumpTasks.add(executor.submit(() -> {
+                try (var ignored = scriptDump.time("accept")) {
+                    scriptDump.acceptClasses(foundClasses);
+                    scriptDump.stubClasses.putAll(frontier);
+                }
                 try {
                     scriptDump.dump();
                     report(Component.translatable("probejs.dump.dump_finished", scriptDump.manager.scriptType.toString()).kjs$green());
+                } catch (CancellationException ignored) {
                 } catch (Throwable e) {
+                    failed.set(true);
                     report(Component.translatable("probejs.dump.dump_error", scriptDump.manager.scriptType.toString()).kjs$red());
-                    throw new RuntimeException(e);
+                    ProbeJS.LOGGER.error("Failed to dump %s scripts".formatted(scriptDump.manager.scriptType), e);
                 }
-            });
-            t.start();
-            dumpThreads.add(t);
+            }));
+        }
+        for (ForkJoinTask<?> dumpTask : dumpTasks) {
+            dumpTask.join();
         }
+        job.checkCancelled();
 
-        Thread reportingThread = new Thread(() -> {
-            while (true) {
-                try {
-                    Thread.sleep(3000);
-                    if (dumpThreads.stream().noneMatch(Thread::isAlive)) return;
-                    String dumpProgress = scriptDumps.stream().filter(sd -> sd.total != 0).map(sd -> "%s/%s".formatted(sd.dumped, sd.total)).collect(Collectors.joining(", "));
-                    report(Component.translatable("probejs.dump.report_progress").append(Component.literal(dumpProgress).kjs$blue()));
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
+        // Written after the dump, so the members reflected in transpiling are cached too
+        try (var ignored = telemetry.time("class_cache/write")) {
+            ClassRegistry.REGISTRY.writeTo(CLASS_CACHE, modHash);
+        } catch (Throwable e) {
+            ProbeJS.LOGGER.error("Failed to write the class cache", e);
+        }
+
+        if (ProbeConfig.INSTANCE.exportSnapshot.get()) {
+            try (var ignored = telemetry.time("snapshot")) {
+                DumpSnapshot.capture(foundClasses, scriptDumps).writeTo(SNAPSHOT);
+            } catch (Throwable e) {
+                ProbeJS.LOGGER.error("Failed to export dump snapshot", e);
             }
-        });
-        reportingThread.start();
+        }
+
+        if (failed.get()) return () -> {};
+        return () -> {
+            ProbeConfig.INSTANCE.modHash.set(modHash);
+            ProbeConfig.INSTANCE.registryHash.set(registryHash);
+        };
+    }
+
+    /**
+     * Reports the overall progress when it passes another 10%.
+     */
+    private void reportProgress() {
+        int dumped = 0, total = 0;
+        for (ScriptDump scriptDump : scriptDumps) {
+            dumped += scriptDump.dumped.get();
+            total += scriptDump.total.get();
+        }
+        if (total == 0) return;
+
+        int step = dumped * 10 / total;
+        int reported = reportedStep.get();
+        if (step <= reported || !reportedStep.compareAndSet(reported, step)) return;
+
+        String dumpProgress = scriptDumps.stream()
+                .filter(sd -> sd.total.get() != 0)
+                .map(sd -> "%s/%s".formatted(sd.dumped.get(), sd.total.get()))
+                .collect(Collectors.joining(", "));
+        report(Component.translatable("probejs.dump.report_progress").append(Component.literal(dumpProgress).kjs$blue()));
+    }
+
+    private void reportTelemetry() {
+        try {
+            telemetry.writeTo(REPORT);
+        } catch (IOException e) {
+            ProbeJS.LOGGER.error("Failed to write dump report", e);
+        }
+
+        report(Component.translatable("probejs.dump.telemetry", "%.1fs".formatted(telemetry.getElapsedNanos() / 1e9)));
+        for (DumpTelemetry.Stage stage : telemetry.getSlowest(5)) {
+            report(Component.literal("%s: %.2fs, CPU %.2fs, %d MB allocated".formatted(
+                    stage.name,
+                    stage.getWallNanos() / 1e9,
+                    stage.getCpuNanos() / 1e9,
+                    stage.getAllocatedBytes() / (1024 * 1024)
+            )).kjs$gray());
+        }
+    }
+
+    /**
+     * Creates the pool running the dump, sized by the dumpThreads config, or the
+     * number of available cores if it's not set.
+     */
+    private static ForkJoinPool createExecutor() {
+        int threads = ProbeConfig.INSTANCE.dumpThreads.get();
+        if (threads <= 0) threads = Runtime.getRuntime().availableProcessors();
+
+        ClassLoader classLoader = ProbeDump.class.getClassLoader();
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("ProbeJS-Dump-%d".formatted(threadCount.getAndIncrement()));
+            // Workers do not inherit the mod class loader, which breaks class loading in Forge
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        }, null, false);
     }
 
     public void cleanup(Consumer<Component> p) throws IOException {
@@ -20,9 +20,9 @@ public class ForgeEventDoc extends ProbeJSPlugin {
 
     @Override
     public void modifyClasses(ScriptDump scriptDump, Map<ClassPath, TypeScriptFile> globalClasses) {
-        TypeScriptFile typeScriptFile = globalClasses.get(new ClassPath(ForgeEventWrapper.class));
-        typeScriptFile.declaration.addClass(new ClassPath(GenericEvent.class));
-        typeScriptFile.declaration.addClass(new ClassPath(Event.class));
+        TypeScriptFile typeScriptFile = globalClasses.get(ClassPath.of(ForgeEventWrapper.class));
+        typeScriptFile.declaration.addClass(ClassPath.of(GenericEvent.class));
+        typeScriptFile.declaration.addClass(ClassPath.of(Event.class));
         ClassDecl classDecl = typeScriptFile.findCode(ClassDecl.class).orElse(null);
         if (classDecl == null) return;
 
@@ -37,10 +37,10 @@ public class ForgeEventDoc extends ProbeJSPlugin {
                                 )
                         )
                 );
-                method.params.get(0).type = Types.generic("T");
-                method.params.get(1).type = Types.lambda()
+                method.setParamType(0, Types.generic("T"));
+                method.setParamType(1, Types.lambda()
                         .param("event", Types.parameterized(Types.primitive("InstanceType"), Types.primitive("T")))
-                        .build();
+                        .build());
             } else if (method.name.equals("onGenericEvent")) {
                 method.variableTypes.add(
                         Types.generic("T",
@@ -51,12 +51,13 @@ public class ForgeEventDoc extends ProbeJSPlugin {
                                 )
                         )
                 );
-                method.params.get(0).type = Types.generic("T");
-                method.params.get(2).type = Types.lambda()
+                method.setParamType(0, Types.generic("T"));
+                method.setParamType(2, Types.lambda()
                         .param("event", Types.parameterized(Types.primitive("InstanceType"), Types.primitive("T")))
-                        .build();
+                        .build());
             }
         }
+        classDecl.markDirty();
     }
 
     @Override
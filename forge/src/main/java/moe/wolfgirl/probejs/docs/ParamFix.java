@@ -17,7 +17,7 @@ public class ParamFix extends ProbeJSPlugin {
     @Override
     public void modifyClasses(ScriptDump scriptDump, Map<ClassPath, TypeScriptFile> globalClasses) {
 
-        var textWrapper = globalClasses.get(new ClassPath(TextWrapper.class));
+        var textWrapper = globalClasses.get(ClassPath.of(TextWrapper.class));
         DocUtils.replaceParamType(
                 textWrapper,
                 m -> m.params.size() == 1 && m.name.equals("of"),
@@ -25,7 +25,7 @@ public class ParamFix extends ProbeJSPlugin {
                 Types.type(MutableComponent.class)
         );
 
-        var outputItem = globalClasses.get(new ClassPath(OutputItem.class));
+        var outputItem = globalClasses.get(ClassPath.of(OutputItem.class));
         DocUtils.replaceParamType(
                 outputItem,
                 m -> m.params.size() == 1 && m.name.equals("of"),
@@ -33,7 +33,7 @@ public class ParamFix extends ProbeJSPlugin {
                 Types.type(OutputItem.class)
         );
 
-        var inputItem = globalClasses.get(new ClassPath(InputItem.class));
+        var inputItem = globalClasses.get(ClassPath.of(InputItem.class));
         DocUtils.replaceParamType(
                 inputItem,
                 m -> m.params.size() == 1 && m.name.equals("of"),
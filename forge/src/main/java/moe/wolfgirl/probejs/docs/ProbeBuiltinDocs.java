@@ -51,20 +51,32 @@ public class ProbeBuiltinDocs extends ProbeJSPlugin {
         }
     }
 
+    /**
+     * Also times each doc in the telemetry of the dump, as they are plugins on their own.
+     */
+    private static void forEach(ScriptDump scriptDump, String hook, Consumer<ProbeJSPlugin> consumer) {
+        for (Supplier<ProbeJSPlugin> builtinDoc : BUILTIN_DOCS) {
+            ProbeJSPlugin doc = builtinDoc.get();
+            try (var ignored = scriptDump.time("%s/builtin/%s".formatted(hook, doc.getClass().getSimpleName()))) {
+                consumer.accept(doc);
+            }
+        }
+    }
+
     @Override
     public void addGlobals(ScriptDump scriptDump) {
-        forEach(builtinDoc -> builtinDoc.addGlobals(scriptDump));
+        forEach(scriptDump, "addGlobals", builtinDoc -> builtinDoc.addGlobals(scriptDump));
     }
 
     @Override
     public void modifyClasses(ScriptDump scriptDump, Map<ClassPath, TypeScriptFile> globalClasses) {
-        forEach(builtinDoc -> builtinDoc.modifyClasses(scriptDump, globalClasses));
+        forEach(scriptDump, "modifyClasses", builtinDoc -> builtinDoc.modifyClasses(scriptDump, globalClasses));
 
     }
 
     @Override
     public void assignType(ScriptDump scriptDump) {
-        forEach(builtinDoc -> builtinDoc.assignType(scriptDump));
+        forEach(scriptDump, "assignType", builtinDoc -> builtinDoc.assignType(scriptDump));
 
     }
 
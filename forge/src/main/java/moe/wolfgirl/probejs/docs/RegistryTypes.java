@@ -111,7 +111,7 @@ public class RegistryTypes extends ProbeJSPlugin {
             ResourceKey<? extends Registry<?>> key = entry.getKey();
             RegistryInfo<?> info = entry.getValue();
 
-            TypeScriptFile typeScriptFile = globalClasses.get(new ClassPath(info.objectBaseClass));
+            TypeScriptFile typeScriptFile = globalClasses.get(ClassPath.of(info.objectBaseClass));
             if (typeScriptFile == null) continue;
             ClassDecl classDecl = typeScriptFile.findCode(ClassDecl.class).orElse(null);
             if (classDecl == null) continue;
@@ -18,7 +18,7 @@ public class EnumTypes extends ProbeJSPlugin {
         LOCK.lock();
         try {
             for (Clazz recordedClass : scriptDump.recordedClasses) {
-                if (!recordedClass.original.isEnum()) continue;
+                if (recordedClass.original == null || !recordedClass.original.isEnum()) continue;
                 EnumTypeWrapper<?> typeWrapper = EnumTypeWrapper.get(recordedClass.original);
                 BaseType[] types = typeWrapper.nameValues
                         .keySet()
@@ -31,7 +31,7 @@ import java.util.Set;
 
 public class RecipeEvents extends ProbeJSPlugin {
     public static final Map<String, String> SHORTCUTS = new HashMap<>();
-    public static final ClassPath DOCUMENTED_RECIPES = new ClassPath("moe.wolfgirl.probejs.generated.DocumentedRecipes");
+    public static final ClassPath DOCUMENTED_RECIPES = ClassPath.of("moe.wolfgirl.probejs.generated.DocumentedRecipes");
 
     {
         SHORTCUTS.put("shaped", "kubejs:shaped");
@@ -85,7 +85,7 @@ public class RecipeEvents extends ProbeJSPlugin {
         globalClasses.put(DOCUMENTED_RECIPES, documentFile);
 
         // Inject types into the RecipeEventJS
-        TypeScriptFile recipeEventFile = globalClasses.get(new ClassPath(RecipesEventJS.class));
+        TypeScriptFile recipeEventFile = globalClasses.get(ClassPath.of(RecipesEventJS.class));
         ClassDecl recipeEvent = recipeEventFile.findCode(ClassDecl.class).orElse(null);
         if (recipeEvent == null) return; // What???
         recipeEvent.methods.stream()
@@ -111,11 +111,12 @@ public class RecipeEvents extends ProbeJSPlugin {
                 recipeEventFile.declaration.addClass(usedClassPath);
             }
         }
+        recipeEvent.markDirty();
 
     }
 
     private static ClassPath getSchemaClassPath(String namespace, String id) {
-        return new ClassPath("moe.wolfgirl.probejs.generated.schema.%s.%s".formatted(
+        return ClassPath.of("moe.wolfgirl.probejs.generated.schema.%s.%s".formatted(
                 namespace, NameUtils.rlToTitle(id)
         ));
     }
@@ -66,19 +66,20 @@ public class RegistryEvents extends ProbeJSPlugin {
         }
 
         // Let createCustom to use Supplier<T> instead of object
-        TypeScriptFile registryEvent = globalClasses.get(new ClassPath(RegistryEventJS.class));
+        TypeScriptFile registryEvent = globalClasses.get(ClassPath.of(RegistryEventJS.class));
         ClassDecl eventClass = registryEvent.findCode(ClassDecl.class).orElse(null);
         if (eventClass == null) return;
 
         eventClass.methods.stream()
                 .filter(method -> method.name.equals("createCustom") && method.params.size() == 2)
                 .findAny()
-                .ifPresent(method -> method.params.get(1).type = Types.lambda().returnType(Types.generic("T")).build());
+                .ifPresent(method -> method.setParamType(1, Types.lambda().returnType(Types.generic("T")).build()));
+        eventClass.markDirty();
 
     }
 
     private static ClassPath getRegistryClassPath(String namespace, String location) {
-        return new ClassPath("moe.wolfgirl.probejs.generated.registry.%s.%s".formatted(
+        return ClassPath.of("moe.wolfgirl.probejs.generated.registry.%s.%s".formatted(
                 namespace, NameUtils.rlToTitle(location)
         ));
     }
@@ -24,8 +24,8 @@ import net.minecraftforge.server.ServerLifecycleHooks;
 import java.util.Map;
 
 public class TagEvents extends ProbeJSPlugin {
-    public static final ClassPath TAG_EVENT = new ClassPath("moe.wolfgirl.probejs.generated.TagEventProbe");
-    public static final ClassPath TAG_WRAPPER = new ClassPath("moe.wolfgirl.probejs.generated.TagWrapperProbe");
+    public static final ClassPath TAG_EVENT = ClassPath.of("moe.wolfgirl.probejs.generated.TagEventProbe");
+    public static final ClassPath TAG_WRAPPER = ClassPath.of("moe.wolfgirl.probejs.generated.TagWrapperProbe");
 
     // Create TagEventProbe<T, I> and TagWrapperProbe<T, I>
     // Generate string overrides for all registry types
@@ -1,7 +1,9 @@
 package moe.wolfgirl.probejs.lang.decompiler;
 
 import moe.wolfgirl.probejs.lang.decompiler.parser.ParsedDocument;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassFileReader;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 
 import java.io.IOException;
@@ -30,7 +32,7 @@ public class ProbeFileSaver implements IResultSaver {
     public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) {
         String[] parts = qualifiedName.split("/");
         parts[parts.length - 1] = "$" + parts[parts.length - 1];
-        ClassPath classPath = new ClassPath(List.of(parts));
+        ClassPath classPath = ClassPath.of(List.of(parts));
         result.put(classPath, new ParsedDocument(content));
         classCount++;
         if (callback != null) callback.run();
@@ -53,7 +55,7 @@ public class ProbeFileSaver implements IResultSaver {
 
     @Override
     public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) {
-        ClassPath classPath = new ClassPath(qualifiedName.replace("/", "."));
+        ClassPath classPath = ClassPath.of(qualifiedName.replace("/", "."));
         result.put(classPath, new ParsedDocument(content));
         classCount++;
         if (callback != null) callback.run();
@@ -81,6 +83,9 @@ public class ProbeFileSaver implements IResultSaver {
         }
     }
 
+    /**
+     * Gets the decompiled classes that can be loaded, the classes are not initialized.
+     */
     public Set<Class<?>> getClasses() {
         Set<Class<?>> classes = new HashSet<>();
         for (Map.Entry<ClassPath, ParsedDocument> entry : result.entrySet()) {
@@ -96,6 +101,28 @@ public class ProbeFileSaver implements IResultSaver {
         return classes;
     }
 
+    /**
+     * Reads the decompiled classes that can't be loaded from their class files.
+     *
+     * @see ClassFileReader
+     */
+    public List<Clazz> readUnloadableClasses() {
+        ClassLoader classLoader = ProbeFileSaver.class.getClassLoader();
+        List<Clazz> classes = new ArrayList<>();
+        for (Map.Entry<ClassPath, ParsedDocument> entry : result.entrySet()) {
+            ClassPath classPath = entry.getKey();
+            if (entry.getValue().isMixinClass()) continue;
+            try {
+                classPath.forName();
+                continue;
+            } catch (Throwable ignored) {
+            }
+            Clazz clazz = ClassFileReader.read(classPath.getClassPathJava(), classLoader);
+            if (clazz != null) classes.add(clazz);
+        }
+        return classes;
+    }
+
     public ProbeFileSaver callback(Runnable callback) {
         this.callback = callback;
         return this;
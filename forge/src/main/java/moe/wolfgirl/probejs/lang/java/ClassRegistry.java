@@ -3,37 +3,70 @@ package moe.wolfgirl.probejs.lang.java;
 import dev.latvian.mods.rhino.util.HideFromJS;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
-import moe.wolfgirl.probejs.lang.java.clazz.members.ConstructorInfo;
-import moe.wolfgirl.probejs.lang.java.clazz.members.FieldInfo;
-import moe.wolfgirl.probejs.lang.java.clazz.members.MethodInfo;
-import moe.wolfgirl.probejs.lang.java.clazz.members.ParamInfo;
-import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
-import moe.wolfgirl.probejs.lang.java.type.impl.VariableType;
+import moe.wolfgirl.probejs.lang.snapshot.ClassCache;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * The classes to dump.
+ * <br>
+ * Classes can be added from any thread, as scripts load classes while a dump is
+ * running, so the dump works on the snapshots from {@link #getFoundClasses()}.
+ */
 @HideFromJS
 public class ClassRegistry {
     public static final ClassRegistry REGISTRY = new ClassRegistry();
 
-    public Map<ClassPath, Clazz> foundClasses = new HashMap<>();
-
+    public final Map<ClassPath, Clazz> foundClasses = new ConcurrentHashMap<>();
+    /**
+     * Classes added directly, e.g. bindings, loaded classes and classes provided by plugins,
+     * discovery starts from them.
+     */
+    private final Set<ClassPath> roots = ConcurrentHashMap.newKeySet();
+    /**
+     * Classes found before, which will be used again if discovery reaches them.
+     */
+    private final Map<ClassPath, Clazz> previousClasses = new ConcurrentHashMap<>();
+    /**
+     * Classes referenced by the found classes but not discovered because of the limits,
+     * and the number of their type variables.
+     */
+    private final Map<ClassPath, Integer> frontier = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped after each change to the found classes, so a snapshot knows if it's outdated.
+     */
+    private final AtomicLong modCount = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(-1, List.of());
+
+    /**
+     * Adds the classes by their paths. Classes not found yet are loaded, the ones
+     * that can't be loaded are skipped, as there's nothing to dump for them.
+     */
     public void fromPackage(Collection<ClassPath> classPaths) {
         for (ClassPath pack : classPaths) {
             if (!foundClasses.containsKey(pack)) {
-                foundClasses.put(pack, pack.toClazz());
+                try {
+                    Clazz previous = previousClasses.get(pack);
+                    Clazz clazz = previous != null ? previous : new Clazz(pack.forName());
+                    if (foundClasses.putIfAbsent(pack, clazz) == null) modCount.incrementAndGet();
+                } catch (Throwable ignored) {
+                    continue;
+                }
             }
+            roots.add(pack);
         }
     }
 
     public void fromClazz(Collection<Clazz> classes) {
         for (Clazz c : classes) {
-            if (!foundClasses.containsKey(c.classPath)) {
-                foundClasses.put(c.classPath, c);
-            }
+            roots.add(c.classPath);
+            if (foundClasses.putIfAbsent(c.classPath, c) == null) modCount.incrementAndGet();
         }
     }
 
@@ -41,94 +74,150 @@ public class ClassRegistry {
         for (Class<?> c : classes) {
             if (c.isSynthetic()) continue;
             if (c.isAnonymousClass()) continue;
-            if (!foundClasses.containsKey(new ClassPath(c))) {
+            ClassPath classPath = ClassPath.of(c);
+            if (!foundClasses.containsKey(classPath)) {
                 try {
-                    Clazz clazz = new Clazz(c);
-                    foundClasses.put(clazz.classPath, clazz);
+                    Clazz previous = previousClasses.get(classPath);
+                    Clazz clazz = previous != null ? previous : new Clazz(c);
+                    if (foundClasses.putIfAbsent(classPath, clazz) == null) modCount.incrementAndGet();
                 } catch (Throwable ignored) {
+                    continue;
                 }
             }
+            roots.add(classPath);
         }
     }
 
-    private Set<Class<?>> retrieveClass(Clazz clazz) {
-        Set<Class<?>> classes = new HashSet<>();
-
-        for (ConstructorInfo constructor : clazz.constructors) {
-            for (ParamInfo param : constructor.params) {
-                classes.addAll(param.type.getClasses());
-            }
-            for (VariableType variableType : constructor.variableTypes) {
-                classes.addAll(variableType.getClasses());
-            }
+    /**
+     * Walks the type graph from the roots until no new class is reached.
+     * <br>
+     * Each wave of newly reached classes is reflected in parallel, in the pool the
+     * dump is running in. The classes of a wave are added in the order of their
+     * names, so the result doesn't depend on the scheduling.
+     * <br>
+     * Classes more than maxDepth hops away from the roots are not discovered, and
+     * no more classes are discovered after there are maxClasses of them. Supertypes
+     * are always discovered, as a class can't be declared without them. Classes
+     * left out are in {@link #getFrontier()}.
+     *
+     * @param maxDepth   the max hops from the roots, or negative for no limit
+     * @param maxClasses the max number of classes, or negative for no limit
+     */
+    public void discoverClasses(int maxDepth, int maxClasses) {
+        // Classes found by the last discovery are discovered again, as the limits can change
+        foundClasses.entrySet().removeIf(entry -> {
+            if (roots.contains(entry.getKey())) return false;
+            previousClasses.put(entry.getKey(), entry.getValue());
+            return true;
+        });
+        modCount.incrementAndGet();
+        frontier.clear();
+
+        List<Clazz> rootClazz = getFoundClasses();
+        List<Class<?>> rootClasses = new ArrayList<>();
+        for (Clazz clazz : rootClazz) {
+            if (clazz.original != null) rootClasses.add(clazz.original);
         }
+        List<Clazz> currentClasses = addClasses(getSupertypes(rootClasses));
+        currentClasses.addAll(0, rootClazz);
 
-        for (MethodInfo method : clazz.methods) {
-            for (ParamInfo param : method.params) {
-                classes.addAll(param.type.getClasses());
-            }
-            for (VariableType variableType : method.variableTypes) {
-                classes.addAll(variableType.getClasses());
+        int depth = 0;
+        while (!currentClasses.isEmpty()) {
+            Set<Class<?>> fetchedClass = currentClasses.parallelStream()
+                    .flatMap(clazz -> clazz.getReferencedClasses().stream())
+                    .filter(clazz -> !foundClasses.containsKey(ClassPath.of(clazz)))
+                    .collect(Collectors.toCollection(ConcurrentHashMap::newKeySet));
+            List<Class<?>> reached = fetchedClass.stream()
+                    .sorted(Comparator.comparing(Class::getName))
+                    .toList();
+
+            depth++;
+            int count = reached.size();
+            if (maxDepth >= 0 && depth > maxDepth) count = 0;
+            if (maxClasses >= 0) count = Math.min(count, Math.max(0, maxClasses - foundClasses.size()));
+            for (Class<?> clazz : reached.subList(count, reached.size())) {
+                if (!clazz.isPrimitive()) frontier.put(ClassPath.of(clazz), clazz.getTypeParameters().length);
             }
-            classes.addAll(method.returnType.getClasses());
-        }
 
-        for (FieldInfo field : clazz.fields) {
-            classes.addAll(field.type.getClasses());
+            currentClasses = addClasses(getSupertypes(reached.subList(0, count)));
         }
 
-        for (VariableType variableType : clazz.variableTypes) {
-            classes.addAll(variableType.getClasses());
-        }
+        frontier.keySet().removeIf(foundClasses::containsKey);
+        previousClasses.clear();
+    }
 
-        if (clazz.superClass != null)
-            classes.addAll(clazz.superClass.getClasses());
-        for (TypeDescriptor i : clazz.interfaces) {
-            classes.addAll(i.getClasses());
+    /**
+     * Gets the classes with their supertypes not found yet, in order.
+     */
+    private List<Class<?>> getSupertypes(List<Class<?>> classes) {
+        Set<Class<?>> result = new LinkedHashSet<>();
+        Deque<Class<?>> toVisit = new ArrayDeque<>(classes);
+        while (!toVisit.isEmpty()) {
+            Class<?> clazz = toVisit.poll();
+            if (!result.add(clazz)) continue;
+            Class<?> superClass = clazz.getSuperclass();
+            if (superClass != null && superClass != Object.class) toVisit.add(superClass);
+            toVisit.addAll(Arrays.asList(clazz.getInterfaces()));
         }
+        result.removeIf(clazz -> foundClasses.containsKey(ClassPath.of(clazz)));
+        return new ArrayList<>(result);
+    }
 
-        return classes;
+    /**
+     * Adds the classes, using the previously found ones if possible.
+     */
+    private List<Clazz> addClasses(List<Class<?>> classes) {
+        List<Clazz> added = new ArrayList<>(classes.parallelStream()
+                .map(clazz -> {
+                    Clazz previous = previousClasses.get(ClassPath.of(clazz));
+                    return previous != null ? previous : new Clazz(clazz);
+                })
+                .toList());
+        // A class loaded by scripts meanwhile is kept, as it's a root
+        added.removeIf(clazz -> foundClasses.putIfAbsent(clazz.classPath, clazz) != null);
+        modCount.incrementAndGet();
+        return added;
     }
 
-    public void discoverClasses() {
-        Set<Clazz> currentClasses = new HashSet<>(foundClasses.values());
-        while (!currentClasses.isEmpty()) {
-            Set<Class<?>> fetchedClass = new HashSet<>();
-            for (Clazz currentClass : currentClasses) {
-                fetchedClass.addAll(retrieveClass(currentClass));
-            }
-            fetchedClass.removeIf(clazz -> foundClasses.containsKey(new ClassPath(clazz)));
-            currentClasses.clear();
-            for (Class<?> c : fetchedClass) {
-                Clazz clazz = new Clazz(c);
-                foundClasses.put(clazz.classPath, clazz);
-                currentClasses.add(clazz);
-            }
-        }
+    /**
+     * Gets a snapshot of the found classes, ordered by their paths.
+     * <br>
+     * The snapshot is shared until the found classes change, so don't modify it.
+     */
+    public List<Clazz> getFoundClasses() {
+        Snapshot current = snapshot;
+        long count = modCount.get();
+        if (current.modCount == count) return current.classes;
+
+        List<Clazz> classes = new ArrayList<>(foundClasses.values());
+        classes.sort(Comparator.comparing(clazz -> clazz.classPath.getClassPath()));
+        // Made from the classes after the count, so it's outdated if the count changed since
+        current = new Snapshot(count, Collections.unmodifiableList(classes));
+        snapshot = current;
+        return current.classes;
     }
 
-    public Collection<Clazz> getFoundClasses() {
-        return foundClasses.values();
+    public Map<ClassPath, Integer> getFrontier() {
+        return Map.copyOf(frontier);
     }
 
-    public void writeTo(Path path) throws IOException {
-        try (var writer = Files.newBufferedWriter(path)) {
-            for (ClassPath classPath : foundClasses.keySet()) {
-                writer.write(classPath.getClassPathJava() + "\n");
-            }
-        }
+    public void writeTo(Path path, long modHash) throws IOException {
+        ClassCache.write(path, getFoundClasses(), Set.copyOf(roots), modHash);
     }
 
-    public void loadFrom(Path path) {
-        try (var reader = Files.newBufferedReader(path)) {
-            for (String className : (Iterable<String>) reader.lines()::iterator) {
-                try {
-                    Class<?> loaded = Class.forName(className);
-                    fromClasses(Collections.singleton(loaded));
-                } catch (Throwable ignored) {
-                }
-            }
-        } catch (IOException ignored) {
+    /**
+     * Adds the classes in the cache of the last dump, the ones that were not roots
+     * are only used if discovery reaches them again.
+     *
+     * @see ClassCache
+     */
+    public void loadFrom(Path path, long modHash) {
+        for (ClassCache.Cached cached : ClassCache.read(path, modHash)) {
+            if (cached.root()) fromClazz(List.of(cached.clazz()));
+            else previousClasses.putIfAbsent(cached.clazz().classPath, cached.clazz());
         }
     }
+
+    private record Snapshot(long modCount, List<Clazz> classes) {
+    }
 }
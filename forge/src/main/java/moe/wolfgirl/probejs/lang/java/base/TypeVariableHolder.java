@@ -15,4 +15,9 @@ public abstract class TypeVariableHolder extends AnnotationHolder {
         super(annotations);
         this.variableTypes = Arrays.stream(variables).map(VariableType::new).collect(Collectors.toList());
     }
+
+    public TypeVariableHolder(List<VariableType> variableTypes, Annotation[] annotations) {
+        super(annotations);
+        this.variableTypes = variableTypes;
+    }
 }
@@ -0,0 +1,437 @@
+package moe.wolfgirl.probejs.lang.java.clazz;
+
+import dev.latvian.mods.rhino.util.HideFromJS;
+import moe.wolfgirl.probejs.lang.java.clazz.members.ConstructorInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.FieldInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.MethodInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.ParamInfo;
+import moe.wolfgirl.probejs.lang.java.type.TypeAdapter;
+import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
+import moe.wolfgirl.probejs.lang.java.type.impl.*;
+import moe.wolfgirl.probejs.lang.snapshot.SnapshotAnnotation;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Reads Clazz from class files, without loading the classes.
+ * <br>
+ * This is the fallback for classes that can't be loaded or have members that can't
+ * be reflected, e.g. classes using client-only classes on a server. Classes used by
+ * the class are not loaded, their types are kept by their paths, and the type variables
+ * of raw types are read from the headers of their class files. Only annotation types
+ * are loaded, as annotations can't be made without them.
+ * <br>
+ * Only the public members declared in the class are read, and their names are the
+ * ones in the bytecode. The remapper needs reflected members to remap them, so members
+ * with SRG names are left out, as scripts only see them by their remapped names.
+ */
+public class ClassFileReader {
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+    private static final String HIDE_FROM_JS = Type.getDescriptor(HideFromJS.class);
+    private static final Pattern SRG_NAME = Pattern.compile("[mf]_\\d+_");
+    private static final ClassPath OBJECT = ClassPath.of("java.lang.$Object");
+
+    private final ClassLoader classLoader;
+    private final Map<String, Optional<Class<?>>> loadedClasses = new HashMap<>();
+    private final Map<String, Integer> typeParameterCounts = new HashMap<>();
+
+    private ClassFileReader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @param className the binary name of the class, like {@code a.b.Outer$Inner}
+     * @return the class, or null if the class file can't be found or read
+     */
+    @Nullable
+    public static Clazz read(String className, ClassLoader classLoader) {
+        byte[] bytes;
+        try (InputStream stream = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            if (stream == null) return null;
+            bytes = stream.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+
+        try {
+            return new ClassFileReader(classLoader).read(bytes);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private Clazz read(byte[] bytes) {
+        ClassNode node = new ClassNode();
+        new ClassReader(bytes).accept(node, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+
+        List<VariableType> variableTypes = new ArrayList<>();
+        TypeDescriptor superClass = null;
+        List<TypeDescriptor> interfaces = new ArrayList<>();
+        if (node.signature != null) {
+            Signature signature = new Signature(node.signature);
+            variableTypes.addAll(signature.readTypeParameters());
+            superClass = signature.readType(true);
+            while (signature.hasMore()) interfaces.add(signature.readType(true));
+        } else {
+            if (node.superName != null) superClass = readDescriptor("L" + node.superName + ";");
+            for (String anInterface : node.interfaces) {
+                interfaces.add(readDescriptor("L" + anInterface + ";"));
+            }
+        }
+        // Same as reflection, Object is not a super class worth declaring
+        if (superClass != null && "java/lang/Object".equals(node.superName)) superClass = null;
+
+        boolean isInterface = (node.access & Opcodes.ACC_INTERFACE) != 0;
+        List<ConstructorInfo> constructors = new ArrayList<>();
+        List<MethodInfo> methods = new ArrayList<>();
+        for (MethodNode method : node.methods) {
+            if (!isVisible(method.access, method.visibleAnnotations) || (method.access & Opcodes.ACC_BRIDGE) != 0) continue;
+            if (method.name.equals("<clinit>") || SRG_NAME.matcher(method.name).matches()) continue;
+
+            Signature signature = new Signature(method.signature != null ? method.signature : method.desc);
+            List<VariableType> methodVariables = signature.readTypeParameters();
+            List<TypeDescriptor> paramTypes = signature.readParameters();
+            List<ParamInfo> params = new ArrayList<>();
+            for (int i = 0; i < paramTypes.size(); i++) {
+                boolean varArgs = i == paramTypes.size() - 1 && (method.access & Opcodes.ACC_VARARGS) != 0;
+                params.add(new ParamInfo(getParamName(method, paramTypes.size(), i), paramTypes.get(i), varArgs, NO_ANNOTATIONS));
+            }
+            Annotation[] annotations = readAnnotations(method.visibleAnnotations);
+
+            if (method.name.equals("<init>")) {
+                constructors.add(new ConstructorInfo(methodVariables, annotations, params));
+            } else {
+                boolean isStatic = (method.access & Opcodes.ACC_STATIC) != 0;
+                boolean isAbstract = (method.access & Opcodes.ACC_ABSTRACT) != 0;
+                methods.add(new MethodInfo(
+                        method.name, params, signature.readType(true),
+                        new MethodInfo.MethodAttributes(isStatic, isInterface && !isStatic && !isAbstract, isAbstract),
+                        methodVariables, annotations
+                ));
+            }
+        }
+
+        List<FieldInfo> fields = new ArrayList<>();
+        for (FieldNode field : node.fields) {
+            if (!isVisible(field.access, field.visibleAnnotations) || SRG_NAME.matcher(field.name).matches()) continue;
+            TypeDescriptor type = new Signature(field.signature != null ? field.signature : field.desc).readType(true);
+            fields.add(new FieldInfo(
+                    field.name, type,
+                    new FieldInfo.FieldAttributes((field.access & Opcodes.ACC_FINAL) != 0, (field.access & Opcodes.ACC_STATIC) != 0),
+                    readAnnotations(field.visibleAnnotations)
+            ));
+        }
+
+        Clazz.ClassType type;
+        if (isInterface) type = Clazz.ClassType.INTERFACE;
+        else if ((node.access & Opcodes.ACC_ENUM) != 0) type = Clazz.ClassType.ENUM;
+        else if ((node.access & Opcodes.ACC_RECORD) != 0) type = Clazz.ClassType.RECORD;
+        else type = Clazz.ClassType.CLASS;
+
+        // Without the supertypes, only the class and its own interfaces are known to be introduced
+        Set<ClassPath> introducedTypes = new HashSet<>();
+        ClassPath classPath = getClassPath(node.name);
+        introducedTypes.add(classPath);
+        for (String anInterface : node.interfaces) {
+            introducedTypes.add(getClassPath(anInterface));
+        }
+
+        return new Clazz(null, classPath, variableTypes, readAnnotations(node.visibleAnnotations),
+                constructors, fields, methods,
+                superClass, interfaces,
+                new Clazz.ClassAttribute(type, (node.access & Opcodes.ACC_ABSTRACT) != 0, introducedTypes),
+                ClassFingerprint.HASH.hashBytes(bytes).asLong());
+    }
+
+    private static boolean isVisible(int access, @Nullable List<AnnotationNode> annotations) {
+        if ((access & Opcodes.ACC_PUBLIC) == 0 || (access & Opcodes.ACC_SYNTHETIC) != 0) return false;
+        if (annotations == null) return true;
+        for (AnnotationNode annotation : annotations) {
+            if (annotation.desc.equals(HIDE_FROM_JS)) return false;
+        }
+        return true;
+    }
+
+    private static String getParamName(MethodNode method, int paramCount, int index) {
+        // Same as reflection, if the names are not compiled in, the params are named by their index
+        if (method.parameters != null && method.parameters.size() == paramCount) {
+            String name = method.parameters.get(index).name;
+            if (name != null) return name;
+        }
+        return "arg%d".formatted(index);
+    }
+
+    private TypeDescriptor readDescriptor(String descriptor) {
+        return new Signature(descriptor).readType(true);
+    }
+
+    private static ClassPath getClassPath(String internalName) {
+        String name = internalName.replace('/', '.');
+        int lastDot = name.lastIndexOf('.');
+        return ClassPath.of(name.substring(0, lastDot + 1) + "$" + name.substring(lastDot + 1));
+    }
+
+    @Nullable
+    private Class<?> loadClass(String internalName) {
+        return loadedClasses.computeIfAbsent(internalName, name -> {
+            try {
+                return Optional.of(Class.forName(name.replace('/', '.'), false, classLoader));
+            } catch (Throwable e) {
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    private ClassType getClassType(String internalName) {
+        return TypeAdapter.intern(new ClassType(NO_ANNOTATIONS, getClassPath(internalName)));
+    }
+
+    /**
+     * Reads the number of type variables from the header of the class file, or 0 if
+     * the class file can't be found.
+     */
+    private int getTypeParameterCount(String internalName) {
+        return typeParameterCounts.computeIfAbsent(internalName, name -> {
+            try (InputStream stream = classLoader.getResourceAsStream(name + ".class")) {
+                if (stream == null) return 0;
+                String[] signature = new String[1];
+                new ClassReader(stream).accept(new ClassVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visit(int version, int access, String name, String classSignature, String superName, String[] interfaces) {
+                        signature[0] = classSignature;
+                    }
+                }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+                return signature[0] == null ? 0 : countTypeParameters(signature[0]);
+            } catch (IOException | RuntimeException e) {
+                return 0;
+            }
+        });
+    }
+
+    /**
+     * Counts the type parameters of a class signature, without reading the types of the bounds.
+     */
+    private static int countTypeParameters(String signature) {
+        if (signature.charAt(0) != '<') return 0;
+        int count = 0;
+        int index = 1;
+        while (signature.charAt(index) != '>') {
+            index = signature.indexOf(':', index);
+            count++;
+            while (signature.charAt(index) == ':') {
+                index++;
+                // The class bound is empty if there are only interface bounds
+                if (signature.charAt(index) != ':') index = skipType(signature, index);
+            }
+        }
+        return count;
+    }
+
+    private static int skipType(String signature, int index) {
+        char kind = signature.charAt(index);
+        if (kind == '[') return skipType(signature, index + 1);
+        if (kind != 'L' && kind != 'T') return index + 1;
+        // The ends of the type arguments are nested in brackets
+        int depth = 0;
+        while (true) {
+            char c = signature.charAt(index++);
+            if (c == '<') depth++;
+            else if (c == '>') depth--;
+            else if (c == ';' && depth == 0) return index;
+        }
+    }
+
+    private Annotation[] readAnnotations(@Nullable List<AnnotationNode> nodes) {
+        if (nodes == null || nodes.isEmpty()) return NO_ANNOTATIONS;
+        List<Annotation> annotations = new ArrayList<>();
+        for (AnnotationNode node : nodes) {
+            Annotation annotation = createAnnotation(node);
+            if (annotation != null) annotations.add(annotation);
+        }
+        return annotations.toArray(Annotation[]::new);
+    }
+
+    @Nullable
+    private Annotation createAnnotation(AnnotationNode node) {
+        Class<?> type = loadClass(Type.getType(node.desc).getInternalName());
+        if (type == null || !type.isAnnotation()) return null;
+
+        Map<String, Object> raw = new HashMap<>();
+        if (node.values != null) {
+            for (int i = 0; i < node.values.size(); i += 2) {
+                raw.put((String) node.values.get(i), node.values.get(i + 1));
+            }
+        }
+        try {
+            Map<String, Object> values = new HashMap<>();
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.getParameterCount() != 0) continue;
+                Object value = raw.containsKey(method.getName()) ?
+                        convertValue(raw.get(method.getName()), method.getReturnType()) :
+                        method.getDefaultValue();
+                if (value == null) return null;
+                values.put(method.getName(), value);
+            }
+            return SnapshotAnnotation.create(type, values, classLoader);
+        } catch (RuntimeException | LinkageError e) {
+            // The values are not available here
+            return null;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Nullable
+    private Object convertValue(Object value, Class<?> type) {
+        if (type.isArray()) {
+            List<?> values = (List<?>) value;
+            Object array = Array.newInstance(type.getComponentType(), values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Object converted = convertValue(values.get(i), type.getComponentType());
+                if (converted == null) return null;
+                Array.set(array, i, converted);
+            }
+            return array;
+        }
+        if (value instanceof Type asmType) {
+            if (asmType.getSort() != Type.OBJECT) return null;
+            return loadClass(asmType.getInternalName());
+        }
+        if (value instanceof String[] enumValue) return Enum.valueOf((Class<Enum>) type, enumValue[1]);
+        if (value instanceof AnnotationNode annotation) return createAnnotation(annotation);
+        return value;
+    }
+
+    /**
+     * Reads types from a generic signature or a descriptor, which is a signature without generics.
+     */
+    private class Signature {
+        private final String value;
+        private int index = 0;
+
+        private Signature(String value) {
+            this.value = value;
+        }
+
+        private boolean hasMore() {
+            return index < value.length();
+        }
+
+        private List<VariableType> readTypeParameters() {
+            List<VariableType> variableTypes = new ArrayList<>();
+            if (value.charAt(index) != '<') return variableTypes;
+            index++;
+            while (value.charAt(index) != '>') {
+                String symbol = value.substring(index, value.indexOf(':', index));
+                index += symbol.length();
+                List<TypeDescriptor> bounds = new ArrayList<>();
+                while (value.charAt(index) == ':') {
+                    index++;
+                    // The class bound is empty if there are only interface bounds
+                    if (value.charAt(index) == ':') continue;
+                    TypeDescriptor bound = readType(true);
+                    // Same as reflection, an Object bound is not a bound
+                    if (!(bound instanceof ClassType classType && classType.classPath.equals(OBJECT))) bounds.add(bound);
+                }
+                variableTypes.add(TypeAdapter.intern(new VariableType(NO_ANNOTATIONS, symbol, bounds)));
+            }
+            index++;
+            return variableTypes;
+        }
+
+        private List<TypeDescriptor> readParameters() {
+            List<TypeDescriptor> params = new ArrayList<>();
+            index++;
+            while (value.charAt(index) != ')') params.add(readType(true));
+            index++;
+            return params;
+        }
+
+        /**
+         * @param recursive if raw types are converted with Object as the type arguments, same as {@link TypeAdapter}
+         */
+        private TypeDescriptor readType(boolean recursive) {
+            char kind = value.charAt(index++);
+            return TypeAdapter.intern(switch (kind) {
+                case 'L' -> readClassType(recursive);
+                case 'T' -> {
+                    int end = value.indexOf(';', index);
+                    String symbol = value.substring(index, end);
+                    index = end + 1;
+                    yield new VariableType(NO_ANNOTATIONS, symbol, new ArrayList<>());
+                }
+                case '[' -> new ArrayType(NO_ANNOTATIONS, readType(recursive));
+                default -> new ClassType(getPrimitive(kind));
+            });
+        }
+
+        private TypeDescriptor readClassType(boolean recursive) {
+            StringBuilder name = new StringBuilder();
+            List<TypeDescriptor> arguments = null;
+            while (true) {
+                char c = value.charAt(index++);
+                if (c == ';') break;
+                if (c == '<') {
+                    arguments = readTypeArguments();
+                } else if (c == '.') {
+                    // Inner class of a parameterized class, only the arguments of the inner class are kept
+                    name.append('$');
+                    arguments = null;
+                } else {
+                    name.append(c);
+                }
+            }
+
+            ClassType base = getClassType(name.toString());
+            if (arguments != null) return new ParamType(NO_ANNOTATIONS, base, arguments);
+            int parameterCount = recursive ? getTypeParameterCount(name.toString()) : 0;
+            if (recursive && parameterCount != 0) {
+                return new ParamType(NO_ANNOTATIONS, base, Collections.nCopies(parameterCount, TypeAdapter.intern(new ClassType(Object.class))));
+            }
+            return base;
+        }
+
+        private List<TypeDescriptor> readTypeArguments() {
+            List<TypeDescriptor> arguments = new ArrayList<>();
+            while (value.charAt(index) != '>') {
+                char c = value.charAt(index);
+                if (c == '*' || c == '+' || c == '-') {
+                    index++;
+                    // Same as reflection, bounds of wildcards in type arguments are not kept
+                    if (c != '*') readType(false);
+                    arguments.add(new WildcardType(NO_ANNOTATIONS, Optional.empty()));
+                } else {
+                    arguments.add(readType(false));
+                }
+            }
+            index++;
+            return arguments;
+        }
+    }
+
+    private static Class<?> getPrimitive(char kind) {
+        return switch (kind) {
+            case 'Z' -> boolean.class;
+            case 'B' -> byte.class;
+            case 'C' -> char.class;
+            case 'S' -> short.class;
+            case 'I' -> int.class;
+            case 'J' -> long.class;
+            case 'F' -> float.class;
+            case 'D' -> double.class;
+            case 'V' -> void.class;
+            default -> throw new IllegalArgumentException("Unknown type %s in signature".formatted(kind));
+        };
+    }
+}
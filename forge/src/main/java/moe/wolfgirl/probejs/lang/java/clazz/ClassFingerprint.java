@@ -0,0 +1,53 @@
+package moe.wolfgirl.probejs.lang.java.clazz;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fingerprints of classes, hashed from the bytecode of the class and its supertypes,
+ * since the inherited members are dumped with the class too.
+ * <br>
+ * Classes can't change in a session, so the fingerprints are computed once per class.
+ */
+public class ClassFingerprint {
+    public static final HashFunction HASH = Hashing.murmur3_128();
+
+    private static final ClassValue<Long> FINGERPRINTS = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            Hasher hasher = HASH.newHasher();
+            hasher.putString(type.getName(), StandardCharsets.UTF_8);
+            byte[] bytes = readBytes(type);
+            if (bytes != null) hasher.putBytes(bytes);
+
+            Class<?> superClass = type.getSuperclass();
+            if (superClass != null) hasher.putLong(of(superClass));
+            for (Class<?> anInterface : type.getInterfaces()) {
+                hasher.putLong(of(anInterface));
+            }
+            return hasher.hash().asLong();
+        }
+    };
+
+    public static long of(Class<?> clazz) {
+        return FINGERPRINTS.get(clazz);
+    }
+
+    @Nullable
+    public static byte[] readBytes(Class<?> clazz) {
+        if (clazz.isPrimitive() || clazz.isArray()) return null;
+        String name = clazz.getName();
+        String resource = name.substring(name.lastIndexOf('.') + 1) + ".class";
+        try (InputStream stream = clazz.getResourceAsStream(resource)) {
+            return stream == null ? null : stream.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
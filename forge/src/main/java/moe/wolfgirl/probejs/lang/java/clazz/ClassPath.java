@@ -8,25 +8,85 @@ import moe.wolfgirl.probejs.utils.RemapperUtils;
 import java.lang.reflect.TypeVariable;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-
-public record ClassPath(List<String> parts) {
-    private static List<String> transformJavaClass(Class<?> clazz) {
-        String name = RemapperUtils.getRemappedClassName(clazz);
-        String[] parts = name.split("\\.");
-        String className = "$" + parts[parts.length - 1];
-        parts[parts.length - 1] = className;
-        return Arrays.stream(parts).toList();
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The path of a class in the typings, like {@code net.minecraft.world.item.$Item}.
+ * <br>
+ * Class paths made by {@link #of} are interned, so there is only one instance for
+ * each path, and the strings made from it are computed once. The constructors are
+ * kept for plugins, the instances they make are equal to the interned ones.
+ */
+public final class ClassPath {
+    private static final Map<String, ClassPath> INTERNED = new ConcurrentHashMap<>();
+    private static final ClassValue<ClassPath> OF_CLASS = new ClassValue<>() {
+        @Override
+        protected ClassPath computeValue(Class<?> type) {
+            String name = RemapperUtils.getRemappedClassName(type);
+            int lastDot = name.lastIndexOf('.');
+            return of(name.substring(0, lastDot + 1) + "$" + name.substring(lastDot + 1));
+        }
+    };
+
+    private final List<String> parts;
+    private final String classPath;
+    private final String classPathJava;
+    private final String typeScriptPath;
+    private final List<String> packageParts;
+    private final int hash;
+
+    /**
+     * @deprecated use {@link #of(String)}
+     */
+    @Deprecated
+    public ClassPath(String classPath) {
+        this.parts = List.of(classPath.split("\\."));
+        this.classPath = classPath;
+        this.typeScriptPath = classPath.replace('.', '/');
+        this.packageParts = parts.subList(0, parts.size() - 1);
+
+        String name = getName();
+        this.classPathJava = name.startsWith("$") ?
+                classPath.substring(0, classPath.length() - name.length()) + name.substring(1) :
+                classPath;
+        this.hash = classPath.hashCode();
     }
 
-    public ClassPath(String className) {
-        this(Arrays.stream(className.split("\\.")).toList());
+    /**
+     * @deprecated use {@link #of(List)}
+     */
+    @Deprecated
+    public ClassPath(List<String> parts) {
+        this(String.join(".", parts));
     }
 
+    /**
+     * @deprecated use {@link #of(Class)}
+     */
+    @Deprecated
     public ClassPath(Class<?> clazz) {
-        this(transformJavaClass(clazz));
+        this(of(clazz).classPath);
+    }
+
+    public static ClassPath of(String className) {
+        ClassPath interned = INTERNED.get(className);
+        if (interned != null) return interned;
+        return INTERNED.computeIfAbsent(className, ClassPath::new);
+    }
+
+    public static ClassPath of(List<String> parts) {
+        return of(String.join(".", parts));
+    }
+
+    public static ClassPath of(Class<?> clazz) {
+        return OF_CLASS.get(clazz);
+    }
+
+    public List<String> parts() {
+        return parts;
     }
 
     public String getName() {
@@ -38,24 +98,23 @@ public record ClassPath(List<String> parts) {
     }
 
     public String getClassPath() {
-        return getConcatenated(".");
+        return classPath;
     }
 
     public String getClassPathJava() {
-        List<String> copy = new ArrayList<>(parts);
-        String last = copy.get(copy.size() - 1);
-        if (last.startsWith("$")) last = last.substring(1);
-        copy.set(copy.size() - 1, last);
-        return String.join(".", copy);
+        return classPathJava;
     }
 
     public String getTypeScriptPath() {
-        return getConcatenated("/");
+        return typeScriptPath;
     }
 
+    /**
+     * Loads the class without initializing it.
+     */
     @HideFromJS
     public Class<?> forName() throws ClassNotFoundException {
-        return Class.forName(getClassPathJava());
+        return Class.forName(getClassPathJava(), false, ClassPath.class.getClassLoader());
     }
 
     public List<String> getGenerics() throws ClassNotFoundException {
@@ -69,9 +128,7 @@ public record ClassPath(List<String> parts) {
     }
 
     public List<String> getPackage() {
-        List<String> classPath = new ArrayList<>(parts);
-        classPath.remove(classPath.size() - 1);
-        return classPath;
+        return packageParts;
     }
 
     public String getConcatenatedPackage(String sep) {
@@ -89,4 +146,20 @@ public record ClassPath(List<String> parts) {
         }
         return full;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof ClassPath other && hash == other.hash && classPath.equals(other.classPath);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassPath[parts=%s]".formatted(parts);
+    }
 }
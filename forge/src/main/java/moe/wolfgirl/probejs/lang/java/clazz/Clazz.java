@@ -13,37 +13,155 @@ import moe.wolfgirl.probejs.lang.java.type.impl.VariableType;
 import moe.wolfgirl.probejs.utils.RemapperUtils;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class Clazz extends TypeVariableHolder implements ClassPathProvider {
 
+    /**
+     * The class, or null if the Clazz is read from a snapshot outside the game.
+     */
     @HideFromJS
+    @Nullable
     public final Class<?> original;
     public final ClassPath classPath;
-    public final List<ConstructorInfo> constructors;
-    public final List<FieldInfo> fields;
-    public final List<MethodInfo> methods;
+    /**
+     * The members, reflected when they are first used.
+     */
+    @Nullable
+    private volatile Members members;
+    /**
+     * The members, kept for plugins using the fields from before the members were lazy.
+     * They are views of the getters below, so reading them reflects the members too.
+     *
+     * @deprecated use {@link #getConstructors()}
+     */
+    @Deprecated
+    public final List<ConstructorInfo> constructors = new MemberList<>(this::getConstructors);
+    /**
+     * @deprecated use {@link #getFields()}
+     */
+    @Deprecated
+    public final List<FieldInfo> fields = new MemberList<>(this::getFields);
+    /**
+     * @deprecated use {@link #getMethods()}
+     */
+    @Deprecated
+    public final List<MethodInfo> methods = new MemberList<>(this::getMethods);
+    /**
+     * Class paths used by the class, collected when they are first asked for.
+     */
+    @Nullable
+    private volatile Collection<ClassPath> classPaths;
+    @Nullable
+    private volatile Set<ClassPath> usedClasses;
     @Nullable
     public final TypeDescriptor superClass;
     public final List<TypeDescriptor> interfaces;
     public final ClassAttribute attribute;
+    private final long fingerprint;
+
+    /**
+     * Replacements of the type variables of interfaces, by the class and then the interface.
+     */
+    private static final ClassValue<Map<Class<?>, Map<TypeVariable<?>, Type>>> INTERFACE_REPLACEMENTS = new ClassValue<>() {
+        @Override
+        protected Map<Class<?>, Map<TypeVariable<?>, Type>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
 
     public Clazz(Class<?> clazz) {
         super(clazz.getTypeParameters(), clazz.getAnnotations());
 
         this.original = clazz;
-        this.classPath = new ClassPath(clazz);
-        this.constructors = RemapperUtils.getConstructors(clazz)
+        this.classPath = ClassPath.of(clazz);
+
+        if (clazz.getSuperclass() != Object.class) {
+            this.superClass = TypeAdapter.getTypeDescription(clazz.getAnnotatedSuperclass());
+        } else {
+            this.superClass = null;
+        }
+        this.interfaces = Arrays.stream(clazz.getAnnotatedInterfaces())
+                .map(TypeAdapter::getTypeDescription)
+                .collect(Collectors.toList());
+        this.attribute = new ClassAttribute(clazz);
+        this.fingerprint = 0;
+    }
+
+    /**
+     * Creates a Clazz from what is read from a snapshot or the class cache, without reflection.
+     */
+    public Clazz(@Nullable Class<?> original, ClassPath classPath, List<VariableType> variableTypes, Annotation[] annotations,
+                 List<ConstructorInfo> constructors, List<FieldInfo> fields, List<MethodInfo> methods,
+                 @Nullable TypeDescriptor superClass, List<TypeDescriptor> interfaces,
+                 ClassAttribute attribute, long fingerprint) {
+        super(variableTypes, annotations);
+        this.original = original;
+        this.classPath = classPath;
+        this.members = new Members(constructors, fields, methods);
+        this.superClass = superClass;
+        this.interfaces = interfaces;
+        this.attribute = attribute;
+        this.fingerprint = fingerprint;
+    }
+
+    public List<ConstructorInfo> getConstructors() {
+        return getMembers().constructors;
+    }
+
+    public List<FieldInfo> getFields() {
+        return getMembers().fields;
+    }
+
+    public List<MethodInfo> getMethods() {
+        return getMembers().methods;
+    }
+
+    /**
+     * If the members are reflected already, Clazz read from snapshots or class files always have their members.
+     */
+    public boolean isReflected() {
+        return members != null;
+    }
+
+    private Members getMembers() {
+        Members result = members;
+        if (result == null) {
+            synchronized (this) {
+                result = members;
+                if (result == null) members = result = reflectMembers(Objects.requireNonNull(original));
+            }
+        }
+        return result;
+    }
+
+    private static Members reflectMembers(Class<?> clazz) {
+        try {
+            return reflectAccessibleMembers(clazz);
+        } catch (LinkageError e) {
+            // Members using classes that can't be loaded here, e.g. client-only classes on a server
+            ClassLoader classLoader = clazz.getClassLoader();
+            Clazz read = classLoader == null ? null : ClassFileReader.read(clazz.getName(), classLoader);
+            if (read == null) throw e;
+            return read.getMembers();
+        }
+    }
+
+    private static Members reflectAccessibleMembers(Class<?> clazz) {
+        List<ConstructorInfo> constructors = RemapperUtils.getConstructors(clazz)
                 .stream()
                 .map(ConstructorInfo::new)
                 .collect(Collectors.toList());
-        this.fields = RemapperUtils.getFields(clazz)
+        List<FieldInfo> fields = RemapperUtils.getFields(clazz)
                 .stream()
                 .map(FieldInfo::new)
                 .collect(Collectors.toList());
-        this.methods = RemapperUtils.getMethods(clazz)
+        List<MethodInfo> methods = RemapperUtils.getMethods(clazz)
                 .stream()
                 .filter(m -> !m.method.isSynthetic())
                 .filter(m -> !hasIdenticalParentMethodAndEnsureNotDirectlyImplementsInterfaceSinceTypeScriptDoesNotHaveInterfaceAtRuntimeInTypeDeclarationFilesJustBecauseItSucks(m.method, clazz))
@@ -52,28 +170,128 @@ public class Clazz extends TypeVariableHolder implements ClassPathProvider {
                     return new MethodInfo(method, replacement);
                 })
                 .collect(Collectors.toList());
+        return new Members(constructors, fields, methods);
+    }
 
-        if (clazz.getSuperclass() != Object.class) {
-            this.superClass = TypeAdapter.getTypeDescription(clazz.getAnnotatedSuperclass());
-        } else {
-            this.superClass = null;
+    /**
+     * Gets the classes used in the signatures of the class and its members.
+     * <br>
+     * If the members are not reflected yet, the classes are read from the generic
+     * signatures directly, so classes that are never transpiled are not reflected.
+     */
+    public Set<Class<?>> getReferencedClasses() {
+        Set<Class<?>> classes = new HashSet<>();
+        for (VariableType variableType : variableTypes) {
+            addClasses(variableType, classes);
         }
-        this.interfaces = Arrays.stream(clazz.getAnnotatedInterfaces())
-                .map(TypeAdapter::getTypeDescription)
-                .collect(Collectors.toList());
-        this.attribute = new ClassAttribute(clazz);
+        if (superClass != null) addClasses(superClass, classes);
+        for (TypeDescriptor i : interfaces) {
+            addClasses(i, classes);
+        }
+
+        if (isReflected() || original == null) {
+            for (ConstructorInfo constructor : getConstructors()) {
+                for (ParamInfo param : constructor.params) {
+                    addClasses(param.type, classes);
+                }
+                for (VariableType variableType : constructor.variableTypes) {
+                    addClasses(variableType, classes);
+                }
+            }
+            for (MethodInfo method : getMethods()) {
+                for (ParamInfo param : method.params) {
+                    addClasses(param.type, classes);
+                }
+                for (VariableType variableType : method.variableTypes) {
+                    addClasses(variableType, classes);
+                }
+                addClasses(method.returnType, classes);
+            }
+            for (FieldInfo field : getFields()) {
+                addClasses(field.type, classes);
+            }
+            return classes;
+        }
+
+        Set<Type> visited = new HashSet<>();
+        for (Constructor<?> constructor : RemapperUtils.getConstructors(original)) {
+            collectClasses(constructor.getTypeParameters(), classes, visited);
+            collectClasses(constructor.getGenericParameterTypes(), classes, visited);
+        }
+        for (var method : RemapperUtils.getMethods(original)) {
+            if (method.method.isSynthetic()) continue;
+            collectClasses(method.method.getTypeParameters(), classes, visited);
+            collectClasses(method.method.getGenericParameterTypes(), classes, visited);
+            collectClasses(method.method.getGenericReturnType(), classes, visited);
+        }
+        for (var field : RemapperUtils.getFields(original)) {
+            collectClasses(field.field.getGenericType(), classes, visited);
+        }
+        return classes;
+    }
+
+    /**
+     * Types read from class files are kept by their paths, so their classes are loaded
+     * here for discovery, each on its own, so one that can't be loaded doesn't stop the others.
+     */
+    private static void addClasses(TypeDescriptor type, Set<Class<?>> classes) {
+        classes.addAll(type.getClasses());
+        type.stream().forEach(part -> {
+            if (part instanceof moe.wolfgirl.probejs.lang.java.type.impl.ClassType classType && classType.clazz == null) {
+                try {
+                    classes.add(classType.classPath.forName());
+                } catch (Throwable ignored) {
+                }
+            }
+        });
+    }
+
+    private static void collectClasses(Type[] types, Set<Class<?>> classes, Set<Type> visited) {
+        for (Type type : types) collectClasses(type, classes, visited);
+    }
+
+    private static void collectClasses(Type type, Set<Class<?>> classes, Set<Type> visited) {
+        if (type instanceof Class<?> clazz) {
+            while (clazz.isArray()) clazz = clazz.getComponentType();
+            classes.add(clazz);
+            // Raw types are converted with Object as the type arguments
+            if (clazz.getTypeParameters().length != 0) classes.add(Object.class);
+        } else if (type instanceof ParameterizedType parameterizedType) {
+            classes.add((Class<?>) parameterizedType.getRawType());
+            collectClasses(parameterizedType.getActualTypeArguments(), classes, visited);
+        } else if (type instanceof GenericArrayType arrayType) {
+            collectClasses(arrayType.getGenericComponentType(), classes, visited);
+        } else if (type instanceof WildcardType wildcardType) {
+            collectClasses(wildcardType.getUpperBounds(), classes, visited);
+            collectClasses(wildcardType.getLowerBounds(), classes, visited);
+        } else if (type instanceof TypeVariable<?> typeVariable) {
+            if (visited.add(typeVariable)) collectClasses(typeVariable.getBounds(), classes, visited);
+        }
+    }
+
+    /**
+     * @see ClassFingerprint
+     */
+    public long getFingerprint() {
+        return original == null ? fingerprint : ClassFingerprint.of(original);
     }
 
     @Override
     public Collection<ClassPath> getClassPaths() {
+        Collection<ClassPath> paths = classPaths;
+        if (paths == null) classPaths = paths = Collections.unmodifiableSet(collectClassPaths());
+        return paths;
+    }
+
+    private Set<ClassPath> collectClassPaths() {
         Set<ClassPath> paths = new HashSet<>();
-        for (ConstructorInfo constructor : constructors) {
+        for (ConstructorInfo constructor : getConstructors()) {
             paths.addAll(constructor.getClassPaths());
         }
-        for (FieldInfo field : fields) {
+        for (FieldInfo field : getFields()) {
             paths.addAll(field.getClassPaths());
         }
-        for (MethodInfo method : methods) {
+        for (MethodInfo method : getMethods()) {
             paths.addAll(method.getClassPaths());
         }
         if (superClass != null) paths.addAll(superClass.getClassPaths());
@@ -100,20 +318,26 @@ public class Clazz extends TypeVariableHolder implements ClassPathProvider {
     }
 
     public Set<ClassPath> getUsedClasses() {
+        Set<ClassPath> used = usedClasses;
+        if (used == null) usedClasses = used = Collections.unmodifiableSet(collectUsedClasses());
+        return used;
+    }
+
+    private Set<ClassPath> collectUsedClasses() {
         Set<ClassPath> used = new HashSet<>();
 
-        for (MethodInfo method : methods) {
+        for (MethodInfo method : getMethods()) {
             used.addAll(method.returnType.getClassPaths());
             for (ParamInfo param : method.params) {
                 used.addAll(param.type.getClassPaths());
             }
         }
 
-        for (FieldInfo field : fields) {
+        for (FieldInfo field : getFields()) {
             used.addAll(field.type.getClassPaths());
         }
 
-        for (ConstructorInfo constructor : constructors) {
+        for (ConstructorInfo constructor : getConstructors()) {
             for (ParamInfo param : constructor.params) {
                 used.addAll(param.type.getClassPaths());
             }
@@ -173,13 +397,30 @@ public class Clazz extends TypeVariableHolder implements ClassPathProvider {
      * 我只是喜欢看着你而已👁👁
      */
     private static Map<TypeVariable<?>, Type> getGenericTypeReplacementForParentInterfaceMethodsJustBecauseJavaDoNotKnowToReplaceThemWithGenericArgumentsOfThisClass(Class<?> thisClass, Method thatMethod) {
-        Class<?> targetClass = thatMethod.getDeclaringClass();
+        return getInterfaceReplacement(thisClass, thatMethod.getDeclaringClass());
+    }
 
+    /**
+     * The replacements only depend on the class and the interface, so they are computed
+     * once for each pair, and the ones of the super interfaces are reused.
+     */
+    private static Map<TypeVariable<?>, Type> getInterfaceReplacement(Class<?> thisClass, Class<?> targetClass) {
+        Map<Class<?>, Map<TypeVariable<?>, Type>> replacements = INTERFACE_REPLACEMENTS.get(thisClass);
+        Map<TypeVariable<?>, Type> replacement = replacements.get(targetClass);
+        if (replacement == null) {
+            // Not computeIfAbsent, as computing it looks up the super interfaces
+            replacement = Map.copyOf(computeInterfaceReplacement(thisClass, targetClass));
+            replacements.putIfAbsent(targetClass, replacement);
+        }
+        return replacement;
+    }
+
+    private static Map<TypeVariable<?>, Type> computeInterfaceReplacement(Class<?> thisClass, Class<?> targetClass) {
         Map<TypeVariable<?>, Type> replacement = new HashMap<>();
         if (Arrays.stream(thisClass.getInterfaces()).noneMatch(c -> c.equals(targetClass))) {
             Class<?> superInterface = Arrays.stream(thisClass.getInterfaces()).filter(targetClass::isAssignableFrom).findFirst().orElse(null);
             if (superInterface == null) return Map.of();
-            Map<TypeVariable<?>, Type> parentType = getGenericTypeReplacementForParentInterfaceMethodsJustBecauseJavaDoNotKnowToReplaceThemWithGenericArgumentsOfThisClass(superInterface, thatMethod);
+            Map<TypeVariable<?>, Type> parentType = getInterfaceReplacement(superInterface, targetClass);
             Map<TypeVariable<?>, Type> parentReplacement = getInterfaceRemap(thisClass, superInterface);
 
             for (Map.Entry<TypeVariable<?>, Type> entry : parentType.entrySet()) {
@@ -228,6 +469,45 @@ public class Clazz extends TypeVariableHolder implements ClassPathProvider {
         return replacement;
     }
 
+    private record Members(List<ConstructorInfo> constructors, List<FieldInfo> fields, List<MethodInfo> methods) {
+    }
+
+    /**
+     * A list that reads and writes the member list it gets only when it's used.
+     */
+    private static class MemberList<T> extends AbstractList<T> {
+        private final Supplier<List<T>> members;
+
+        private MemberList(Supplier<List<T>> members) {
+            this.members = members;
+        }
+
+        @Override
+        public T get(int index) {
+            return members.get().get(index);
+        }
+
+        @Override
+        public int size() {
+            return members.get().size();
+        }
+
+        @Override
+        public T set(int index, T element) {
+            return members.get().set(index, element);
+        }
+
+        @Override
+        public void add(int index, T element) {
+            members.get().add(index, element);
+        }
+
+        @Override
+        public T remove(int index) {
+            return members.get().remove(index);
+        }
+    }
+
     public enum ClassType {
         INTERFACE,
         ENUM,
@@ -240,6 +520,11 @@ public class Clazz extends TypeVariableHolder implements ClassPathProvider {
         public final ClassType type;
         public final boolean isAbstract;
         public final boolean isInterface;
+        /**
+         * Types the class can be assigned to but its super class can't, including the class itself.
+         */
+        public final Set<ClassPath> introducedTypes;
+        @Nullable
         public final Class<?> raw;
 
 
@@ -257,7 +542,33 @@ public class Clazz extends TypeVariableHolder implements ClassPathProvider {
             int modifiers = clazz.getModifiers();
             this.isAbstract = Modifier.isAbstract(modifiers);
             this.isInterface = type == ClassType.INTERFACE;
+            this.introducedTypes = getIntroducedTypes(clazz);
             this.raw = clazz;
         }
+
+        public ClassAttribute(ClassType type, boolean isAbstract, Set<ClassPath> introducedTypes) {
+            this.type = type;
+            this.isAbstract = isAbstract;
+            this.isInterface = type == ClassType.INTERFACE;
+            this.introducedTypes = introducedTypes;
+            this.raw = null;
+        }
+
+        private static Set<ClassPath> getIntroducedTypes(Class<?> clazz) {
+            Class<?> superClass = clazz.getSuperclass();
+            Set<ClassPath> introduced = new HashSet<>();
+            Deque<Class<?>> toVisit = new ArrayDeque<>();
+            Set<Class<?>> visited = new HashSet<>();
+            toVisit.add(clazz);
+            while (!toVisit.isEmpty()) {
+                Class<?> current = toVisit.poll();
+                if (!visited.add(current)) continue;
+                if (superClass == null || !current.isAssignableFrom(superClass)) {
+                    introduced.add(ClassPath.of(current));
+                }
+                toVisit.addAll(Arrays.asList(current.getInterfaces()));
+            }
+            return introduced;
+        }
     }
 }
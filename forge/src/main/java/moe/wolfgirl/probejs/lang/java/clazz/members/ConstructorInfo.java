@@ -5,6 +5,7 @@ import moe.wolfgirl.probejs.lang.java.base.TypeVariableHolder;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.java.type.impl.VariableType;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -18,6 +19,11 @@ public class ConstructorInfo extends TypeVariableHolder implements ClassPathProv
         this.params = Arrays.stream(constructor.getParameters()).map(ParamInfo::new).collect(Collectors.toList());
     }
 
+    public ConstructorInfo(List<VariableType> variableTypes, Annotation[] annotations, List<ParamInfo> params) {
+        super(variableTypes, annotations);
+        this.params = params;
+    }
+
     @Override
     public Collection<ClassPath> getClassPaths() {
         Set<ClassPath> paths = new HashSet<>();
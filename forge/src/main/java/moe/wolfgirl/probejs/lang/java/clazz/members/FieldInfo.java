@@ -7,6 +7,9 @@ import moe.wolfgirl.probejs.lang.java.type.TypeAdapter;
 import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
 import dev.latvian.mods.rhino.JavaMembers;
 
+import java.lang.annotation.Annotation;
+import org.jetbrains.annotations.Nullable;
+
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
@@ -23,6 +26,13 @@ public class FieldInfo extends AnnotationHolder implements ClassPathProvider {
         this.attributes = new FieldAttributes(field.field);
     }
 
+    public FieldInfo(String name, TypeDescriptor type, FieldAttributes attributes, Annotation[] annotations) {
+        super(annotations);
+        this.name = name;
+        this.type = type;
+        this.attributes = attributes;
+    }
+
     @Override
     public Collection<ClassPath> getClassPaths() {
         return type.getClassPaths();
@@ -31,6 +41,7 @@ public class FieldInfo extends AnnotationHolder implements ClassPathProvider {
     public static class FieldAttributes {
         public final boolean isFinal;
         public final boolean isStatic;
+        @Nullable
         private final Field field;
 
         public FieldAttributes(Field field) {
@@ -40,8 +51,15 @@ public class FieldInfo extends AnnotationHolder implements ClassPathProvider {
             this.field = field;
         }
 
+        public FieldAttributes(boolean isFinal, boolean isStatic) {
+            this.isFinal = isFinal;
+            this.isStatic = isStatic;
+            this.field = null;
+        }
+
         public Object getStaticValue() throws IllegalAccessException {
             if (isStatic) throw new RuntimeException("The field is not static!");
+            if (field == null) throw new IllegalAccessException("The field is read from a snapshot!");
             return field.get(null);
         }
     }
@@ -8,6 +8,7 @@ import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
 import moe.wolfgirl.probejs.lang.java.type.impl.VariableType;
 import dev.latvian.mods.rhino.JavaMembers;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
@@ -42,6 +43,15 @@ public class MethodInfo extends TypeVariableHolder implements ClassPathProvider
         }
     }
 
+    public MethodInfo(String name, List<ParamInfo> params, TypeDescriptor returnType, MethodAttributes attributes,
+                      List<VariableType> variableTypes, Annotation[] annotations) {
+        super(variableTypes, annotations);
+        this.name = name;
+        this.params = params;
+        this.returnType = returnType;
+        this.attributes = attributes;
+    }
+
     @Override
     public Collection<ClassPath> getClassPaths() {
         Set<ClassPath> paths = new HashSet<>();
@@ -69,5 +79,11 @@ public class MethodInfo extends TypeVariableHolder implements ClassPathProvider
             this.isDefault = method.isDefault();
             this.isAbstract = Modifier.isAbstract(modifiers);
         }
+
+        public MethodAttributes(boolean isStatic, boolean isDefault, boolean isAbstract) {
+            this.isStatic = isStatic;
+            this.isDefault = isDefault;
+            this.isAbstract = isAbstract;
+        }
     }
 }
@@ -6,6 +6,7 @@ import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.java.type.TypeAdapter;
 import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Parameter;
 import java.util.Collection;
 
@@ -21,6 +22,13 @@ public class ParamInfo extends AnnotationHolder implements ClassPathProvider {
         this.varArgs = parameter.isVarArgs();
     }
 
+    public ParamInfo(String name, TypeDescriptor type, boolean varArgs, Annotation[] annotations) {
+        super(annotations);
+        this.name = name;
+        this.type = type;
+        this.varArgs = varArgs;
+    }
+
     @Override
     public Collection<ClassPath> getClassPaths() {
         return type.getClassPaths();
@@ -1,20 +1,70 @@
 package moe.wolfgirl.probejs.lang.java.type;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import moe.wolfgirl.probejs.lang.java.type.impl.ArrayType;
 import moe.wolfgirl.probejs.lang.java.type.impl.ClassType;
 import moe.wolfgirl.probejs.lang.java.type.impl.ParamType;
 import moe.wolfgirl.probejs.lang.java.type.impl.VariableType;
+import moe.wolfgirl.probejs.lang.java.type.impl.WildcardType;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
-import java.util.Collections;
+import java.util.*;
 
 public class TypeAdapter {
+    /**
+     * Types held weakly, so a type is dropped once nothing uses it. Keys keep their parts,
+     * so the parts stay interned as long as the type does.
+     */
+    private static final Cache<List<Object>, TypeDescriptor> INTERNED = CacheBuilder.newBuilder().weakValues().build();
+
+    /**
+     * Gets the shared instance of the type.
+     * <br>
+     * Types are keyed by their kinds and their parts, which are interned before, so
+     * the parts are compared by identity. Types with annotations are not interned, as
+     * annotations read from snapshots are only equal to themselves.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends TypeDescriptor> T intern(T type) {
+        if (type == null || type.getAnnotations().length != 0) return type;
+        TypeDescriptor interned = INTERNED.asMap().putIfAbsent(getInternKey(type), type);
+        return interned == null ? type : (T) interned;
+    }
+
+    private static List<Object> getInternKey(TypeDescriptor type) {
+        if (type instanceof ClassType classType) {
+            return Arrays.asList(ClassType.class, classType.classPath, classType.clazz);
+        }
+        if (type instanceof ArrayType arrayType) {
+            return Arrays.asList(ArrayType.class, arrayType.component);
+        }
+        if (type instanceof ParamType paramType) {
+            return Arrays.asList(ParamType.class, paramType.base, paramType.params);
+        }
+        if (type instanceof VariableType variableType) {
+            return Arrays.asList(VariableType.class, variableType.symbol, variableType.descriptors);
+        }
+        if (type instanceof WildcardType wildcardType) {
+            var bound = wildcardType.bound.orElse(null);
+            if (bound == null) return Arrays.asList(WildcardType.class, null, null);
+            if (bound.left().isPresent()) return Arrays.asList(WildcardType.class, "super", bound.left().get());
+            return Arrays.asList(WildcardType.class, "extends", bound.right().orElseThrow());
+        }
+        // Unknown types are only equal to themselves
+        return Arrays.asList(type.getClass(), type);
+    }
+
     public static TypeDescriptor getTypeDescription(AnnotatedType type) {
         return getTypeDescription(type, true);
     }
 
     public static TypeDescriptor getTypeDescription(AnnotatedType type, boolean recursive) {
+        return intern(describe(type, recursive));
+    }
+
+    private static TypeDescriptor describe(AnnotatedType type, boolean recursive) {
         if (type == null) return null;
 
         if (type instanceof AnnotatedArrayType arrayType) {
@@ -34,8 +84,8 @@ public class TypeAdapter {
             if (recursive && interfaces.length != 0)
                 return new ParamType(
                         type.getAnnotations(),
-                        new ClassType(clazz),
-                        Collections.nCopies(interfaces.length, new ClassType(Object.class))
+                        intern(new ClassType(clazz)),
+                        Collections.nCopies(interfaces.length, intern(new ClassType(Object.class)))
                 );
             return new ClassType(type);
         }
@@ -47,6 +97,10 @@ public class TypeAdapter {
     }
 
     public static TypeDescriptor getTypeDescription(Type type, boolean recursive) {
+        return intern(describe(type, recursive));
+    }
+
+    private static TypeDescriptor describe(Type type, boolean recursive) {
         if (type == null) return null;
 
         if (type instanceof GenericArrayType arrayType) {
@@ -66,8 +120,8 @@ public class TypeAdapter {
             if (recursive && interfaces.length != 0)
                 return new ParamType(
                         new Annotation[]{},
-                        new ClassType(clazz),
-                        Collections.nCopies(interfaces.length, new ClassType(Object.class))
+                        intern(new ClassType(clazz)),
+                        Collections.nCopies(interfaces.length, intern(new ClassType(Object.class)))
                 );
             return new ClassType(clazz);
         }
@@ -79,14 +133,20 @@ public class TypeAdapter {
             if (variableType.symbol.equals(symbol)) return replacement;
         }
         if (in instanceof ArrayType arrayType) {
-            return new ArrayType(consolidateType(arrayType.component, symbol, replacement));
+            TypeDescriptor component = consolidateType(arrayType.component, symbol, replacement);
+            if (component == arrayType.component && in.getAnnotations().length == 0) return in;
+            return intern(new ArrayType(component));
         }
         if (in instanceof ParamType paramType) {
-            return new ParamType(
-                    new Annotation[]{},
-                    consolidateType(paramType.base, symbol, replacement),
-                    paramType.params.stream().map(t -> consolidateType(t, symbol, replacement)).toList()
-            );
+            TypeDescriptor base = consolidateType(paramType.base, symbol, replacement);
+            List<TypeDescriptor> params = paramType.params.stream().map(t -> consolidateType(t, symbol, replacement)).toList();
+            boolean unchanged = base == paramType.base && in.getAnnotations().length == 0;
+            for (int i = 0; unchanged && i < params.size(); i++) {
+                unchanged = params.get(i) == paramType.params.get(i);
+            }
+            // Nothing replaced, so the type is the same
+            if (unchanged) return in;
+            return intern(new ParamType(new Annotation[]{}, base, params));
         }
         return in;
     }
@@ -7,10 +7,18 @@ import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 
 import java.lang.annotation.Annotation;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Types are immutable, and the ones without annotations are interned by {@link TypeAdapter#intern},
+ * so the same type is usually the same instance.
+ */
 public abstract class TypeDescriptor extends AnnotationHolder implements ClassPathProvider, ClassProvider {
+    private volatile Collection<ClassPath> classPaths;
+    private volatile Collection<Class<?>> classes;
+
     public TypeDescriptor(Annotation[] annotations) {
         super(annotations);
     }
@@ -26,13 +34,39 @@ public abstract class TypeDescriptor extends AnnotationHolder implements ClassPa
      * Gets the class paths required to use the type.
      */
     public Collection<ClassPath> getClassPaths() {
-        return stream().flatMap(t -> t.getClassPaths().stream()).collect(Collectors.toSet());
+        return getCachedClassPaths();
+    }
+
+    /**
+     * Gets the class paths required to use the type, collected once by {@link #collectClassPaths()}.
+     */
+    protected final Collection<ClassPath> getCachedClassPaths() {
+        Collection<ClassPath> result = classPaths;
+        if (result == null) classPaths = result = Collections.unmodifiableCollection(collectClassPaths());
+        return result;
     }
 
     /**
      * Gets the classes involved in the type.
      */
     public Collection<Class<?>> getClasses() {
+        return getCachedClasses();
+    }
+
+    /**
+     * Gets the classes involved in the type, collected once by {@link #collectClasses()}.
+     */
+    protected final Collection<Class<?>> getCachedClasses() {
+        Collection<Class<?>> result = classes;
+        if (result == null) classes = result = Collections.unmodifiableCollection(collectClasses());
+        return result;
+    }
+
+    protected Collection<ClassPath> collectClassPaths() {
+        return stream().flatMap(t -> t.getClassPaths().stream()).collect(Collectors.toSet());
+    }
+
+    protected Collection<Class<?>> collectClasses() {
         return stream().flatMap(t -> t.getClasses().stream()).collect(Collectors.toSet());
     }
 }
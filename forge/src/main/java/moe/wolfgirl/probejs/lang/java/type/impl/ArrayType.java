@@ -11,7 +11,7 @@ import java.util.Collection;
 import java.util.stream.Stream;
 
 public class ArrayType extends TypeDescriptor {
-    public TypeDescriptor component;
+    public final TypeDescriptor component;
 
     public ArrayType(AnnotatedArrayType arrayType) {
         super(arrayType.getAnnotations());
@@ -24,8 +24,12 @@ public class ArrayType extends TypeDescriptor {
     }
 
     public ArrayType(TypeDescriptor arrayType) {
-        super(new Annotation[]{});
-        this.component = arrayType;
+        this(new Annotation[]{}, arrayType);
+    }
+
+    public ArrayType(Annotation[] annotations, TypeDescriptor component) {
+        super(annotations);
+        this.component = component;
     }
 
     @Override
@@ -34,7 +38,7 @@ public class ArrayType extends TypeDescriptor {
     }
 
     @Override
-    public Collection<ClassPath> getClassPaths() {
+    protected Collection<ClassPath> collectClassPaths() {
         return component.getClassPaths();
     }
 
@@ -3,6 +3,8 @@ package moe.wolfgirl.probejs.lang.java.type.impl;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedType;
 import java.lang.reflect.Type;
@@ -12,18 +14,32 @@ import java.util.stream.Stream;
 
 public class ClassType extends TypeDescriptor {
     public final ClassPath classPath;
+    /**
+     * The class, or null if the type is read from a snapshot outside the game.
+     */
+    @Nullable
     public final Class<?> clazz;
 
     public ClassType(AnnotatedType type) {
         super(type.getAnnotations());
         clazz = (Class<?>) type.getType();
-        classPath = new ClassPath(clazz);
+        classPath = ClassPath.of(clazz);
     }
 
     public ClassType(Type type) {
         super(new Annotation[]{});
         clazz = (Class<?>) type;
-        classPath = new ClassPath(clazz);
+        classPath = ClassPath.of(clazz);
+    }
+
+    public ClassType(Annotation[] annotations, ClassPath classPath) {
+        this(annotations, classPath, null);
+    }
+
+    public ClassType(Annotation[] annotations, ClassPath classPath, @Nullable Class<?> clazz) {
+        super(annotations);
+        this.clazz = clazz;
+        this.classPath = classPath;
     }
 
     @Override
@@ -32,13 +48,13 @@ public class ClassType extends TypeDescriptor {
     }
 
     @Override
-    public Collection<ClassPath> getClassPaths() {
+    protected Collection<ClassPath> collectClassPaths() {
         return List.of(classPath);
     }
 
     @Override
-    public Collection<Class<?>> getClasses() {
-        return List.of(clazz);
+    protected Collection<Class<?>> collectClasses() {
+        return clazz == null ? List.of() : List.of(clazz);
     }
 
     @Override
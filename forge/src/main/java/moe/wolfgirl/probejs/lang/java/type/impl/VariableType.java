@@ -6,15 +6,13 @@ import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedTypeVariable;
 import java.lang.reflect.TypeVariable;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class VariableType extends TypeDescriptor {
-    public String symbol;
-    public List<TypeDescriptor> descriptors;
+    public final String symbol;
+    public final List<TypeDescriptor> descriptors;
 
     public VariableType(AnnotatedTypeVariable typeVariable) {
         this(typeVariable, true);
@@ -31,7 +29,7 @@ public class VariableType extends TypeDescriptor {
                 // Filter out unannotated Object here
                 .filter(bound -> !bound.getType().equals(Object.class))
                 .map(TypeAdapter::getTypeDescription)
-                .collect(Collectors.toList()) : new ArrayList<>();
+                .toList() : List.of();
     }
 
     public VariableType(TypeVariable<?> typeVariable, boolean checkBounds) {
@@ -41,9 +39,14 @@ public class VariableType extends TypeDescriptor {
                 // Filter out unannotated Object here
                 .filter(bound -> !bound.getType().equals(Object.class))
                 .map(TypeAdapter::getTypeDescription)
-                .collect(Collectors.toList()) : new ArrayList<>();
+                .toList() : List.of();
     }
 
+    public VariableType(Annotation[] annotations, String symbol, List<TypeDescriptor> descriptors) {
+        super(annotations);
+        this.symbol = symbol;
+        this.descriptors = List.copyOf(descriptors);
+    }
 
     @Override
     public Stream<TypeDescriptor> stream() {
@@ -57,6 +60,4 @@ public class VariableType extends TypeDescriptor {
     public List<TypeDescriptor> getDescriptors() {
         return descriptors;
     }
-
-    
 }
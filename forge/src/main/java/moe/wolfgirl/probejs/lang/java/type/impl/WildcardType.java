@@ -10,7 +10,7 @@ import java.util.Optional;
 import java.util.stream.Stream;
 
 public class WildcardType extends TypeDescriptor {
-    public Optional<Either<TypeDescriptor, TypeDescriptor>> bound;
+    public final Optional<Either<TypeDescriptor, TypeDescriptor>> bound;
 
     public WildcardType(AnnotatedWildcardType wildcardType, boolean checkBound) {
         super(wildcardType.getAnnotations());
@@ -42,6 +42,11 @@ public class WildcardType extends TypeDescriptor {
         }
     }
 
+    public WildcardType(Annotation[] annotations, Optional<Either<TypeDescriptor, TypeDescriptor>> bound) {
+        super(annotations);
+        this.bound = bound;
+    }
+
     @Override
     public Stream<TypeDescriptor> stream() {
         if (bound.isEmpty()) return Stream.empty();
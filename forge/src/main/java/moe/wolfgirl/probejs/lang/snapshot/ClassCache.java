@@ -0,0 +1,190 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import moe.wolfgirl.probejs.ProbeJS;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassFileReader;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassFingerprint;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * The reflected class model of the last dump, so the classes don't need to be
+ * reflected again in the next dump.
+ * <br>
+ * The cache is keyed by the mod hash. If the mods are the same, the classes are
+ * read as they are, otherwise each class is read only if its fingerprint is the
+ * same. Classes that can't be read are reflected again.
+ * <br>
+ * Each class is written on its own, so they can be read in parallel from the
+ * buffer, and a broken class doesn't affect the others. Classes with members
+ * not reflected in the dump are written by their names only, as they are cheap
+ * to have again. So are the classes read from class files, which are read again
+ * from their class files.
+ */
+public class ClassCache {
+    private static final int MAGIC = 0x50524A43;
+    private static final int VERSION = 5;
+
+    /**
+     * @param roots the classes discovery starts from
+     */
+    public static void write(Path path, Collection<Clazz> classes, Set<ClassPath> roots, long modHash) throws IOException {
+        List<Entry> entries = classes.parallelStream()
+                .map(clazz -> toEntry(clazz, roots.contains(clazz.classPath)))
+                .filter(Objects::nonNull)
+                .toList();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(modHash);
+
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.name);
+                out.writeBoolean(entry.root);
+                out.writeBoolean(entry.classFile);
+                out.writeLong(entry.fingerprint);
+                out.writeInt(entry.data.length);
+            }
+            for (Entry entry : entries) {
+                out.write(entry.data);
+            }
+        }
+    }
+
+    /**
+     * Reads the classes in the cache, in the order they were written.
+     */
+    public static List<Cached> read(Path path, long modHash) {
+        if (Files.notExists(path)) return List.of();
+
+        try {
+            // Read to the heap rather than mapped, a live mapping keeps the file from being rewritten on Windows
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return List.of();
+            boolean sameMods = buffer.getLong() == modHash;
+
+            int count = buffer.getInt();
+            List<EntryRef> refs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = readUTF(buffer);
+                boolean root = buffer.get() != 0;
+                boolean classFile = buffer.get() != 0;
+                long fingerprint = buffer.getLong();
+                int length = buffer.getInt();
+                refs.add(new EntryRef(name, root, classFile, fingerprint, length));
+            }
+
+            int offset = buffer.position();
+            List<ByteBuffer> slices = new ArrayList<>(count);
+            for (EntryRef ref : refs) {
+                slices.add(buffer.slice(offset, ref.length));
+                offset += ref.length;
+            }
+
+            ClassLoader classLoader = ClassCache.class.getClassLoader();
+            return IntStream.range(0, count)
+                    .parallel()
+                    .mapToObj(i -> readEntry(refs.get(i), slices.get(i), sameMods, classLoader))
+                    .filter(Objects::nonNull)
+                    .toList();
+        } catch (IOException | RuntimeException e) {
+            ProbeJS.LOGGER.warn("Failed to read the class cache, classes will be reflected again", e);
+            return List.of();
+        }
+    }
+
+    @Nullable
+    private static Entry toEntry(Clazz clazz, boolean root) {
+        if (clazz.original == null) return new Entry(clazz.classPath.getClassPathJava(), root, true, 0, new byte[0]);
+        if (!clazz.isReflected()) return new Entry(clazz.original.getName(), root, false, 0, new byte[0]);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (SnapshotOutput output = new SnapshotOutput(bytes)) {
+                output.writeClazz(clazz);
+            }
+            return new Entry(clazz.original.getName(), root, false, clazz.getFingerprint(), bytes.toByteArray());
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Cached readEntry(EntryRef ref, ByteBuffer data, boolean sameMods, ClassLoader classLoader) {
+        if (ref.classFile) {
+            Clazz read = ClassFileReader.read(ref.name, classLoader);
+            return read == null ? null : new Cached(read, ref.root);
+        }
+
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(ref.name, false, classLoader);
+        } catch (Throwable e) {
+            // The class is gone
+            return null;
+        }
+
+        if (ref.length != 0) {
+            try (SnapshotInput input = new SnapshotInput(new BufferInputStream(data), classLoader, true)) {
+                if (sameMods || ClassFingerprint.of(clazz) == ref.fingerprint) return new Cached(input.readClazz(), ref.root);
+            } catch (Throwable ignored) {
+                // Stale or broken, reflect it again
+            }
+        }
+
+        try {
+            return new Cached(new Clazz(clazz), ref.root);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static String readUTF(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        // Class names have no null or supplementary characters, so modified UTF-8 is the same as UTF-8
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public record Cached(Clazz clazz, boolean root) {
+    }
+
+    /**
+     * @param classFile if the class is read from its class file, as it can't be loaded
+     */
+    private record Entry(String name, boolean root, boolean classFile, long fingerprint, byte[] data) {
+    }
+
+    private record EntryRef(String name, boolean root, boolean classFile, long fingerprint, int length) {
+    }
+
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) return -1;
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import com.mojang.datafixers.util.Pair;
+import moe.wolfgirl.probejs.ProbePaths;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
+import moe.wolfgirl.probejs.lang.transpiler.Transpiler;
+import moe.wolfgirl.probejs.lang.typescript.ScriptDump;
+import moe.wolfgirl.probejs.lang.typescript.code.Code;
+import moe.wolfgirl.probejs.lang.typescript.code.ts.Wrapped;
+import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The class model of a dump, with what plugins added to each script dump.
+ * <br>
+ * Everything that needs the game is captured here, so the dump can be made again
+ * by {@link OfflineDump} without launching the game. Types and code from plugins
+ * are saved formatted, and files modified or added by plugins are saved as their
+ * formatted modules.
+ */
+public class DumpSnapshot {
+    private static final int MAGIC = 0x50524A53;
+    private static final int VERSION = 2;
+
+    public final String probeVersion;
+    public final List<Clazz> classes;
+    public final List<Script> scripts;
+
+    private DumpSnapshot(String probeVersion, List<Clazz> classes, List<Script> scripts) {
+        this.probeVersion = probeVersion;
+        this.classes = classes;
+        this.scripts = scripts;
+    }
+
+    /**
+     * Captures the snapshot after the script dumps are done.
+     */
+    public static DumpSnapshot capture(Collection<Clazz> classes, Collection<ScriptDump> scriptDumps) {
+        Path gameFolder = ProbePaths.PROBE.getParent();
+        String probeVersion = scriptDumps.stream().map(dump -> dump.probeVersion).findFirst().orElse("");
+        return new DumpSnapshot(
+                probeVersion,
+                new ArrayList<>(classes),
+                scriptDumps.stream().map(dump -> Script.capture(dump, gameFolder)).toList()
+        );
+    }
+
+    public void writeTo(Path path) throws IOException {
+        try (SnapshotOutput output = new SnapshotOutput(new GZIPOutputStream(Files.newOutputStream(path)))) {
+            output.writeRawInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeString(probeVersion);
+
+            output.writeInt(classes.size());
+            for (Clazz clazz : classes) {
+                output.writeClazz(clazz);
+            }
+
+            output.writeInt(scripts.size());
+            for (Script script : scripts) {
+                script.write(output);
+            }
+        }
+    }
+
+    public static DumpSnapshot readFrom(Path path) throws IOException {
+        try (SnapshotInput input = new SnapshotInput(new GZIPInputStream(Files.newInputStream(path)))) {
+            if (input.readRawInt() != MAGIC) throw new IOException("%s is not a dump snapshot".formatted(path));
+            int version = input.readInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version %d".formatted(version));
+            String probeVersion = input.readString();
+
+            int classCount = input.readInt();
+            List<Clazz> classes = new ArrayList<>(classCount);
+            for (int i = 0; i < classCount; i++) {
+                classes.add(input.readClazz());
+            }
+
+            int scriptCount = input.readInt();
+            List<Script> scripts = new ArrayList<>(scriptCount);
+            for (int i = 0; i < scriptCount; i++) {
+                scripts.add(Script.read(input));
+            }
+            return new DumpSnapshot(probeVersion, classes, scripts);
+        }
+    }
+
+    /**
+     * What is needed to make a script dump again, paths are relative to the game folder.
+     */
+    public static class Script {
+        public final String basePath;
+        public final String scriptPath;
+        public final Set<ClassPath> recordedClasses;
+        public final Set<ClassPath> deniedClasses;
+        public final Set<ClassPath> rejectedClasses;
+        public final Map<ClassPath, BaseType> predefinedTypes;
+        public final Multimap<ClassPath, BaseType> convertibles;
+        public final Map<ClassPath, String> pluginModules;
+        public final Map<String, Pair<Collection<String>, Code>> globals;
+
+        private Script(String basePath, String scriptPath,
+                       Set<ClassPath> recordedClasses, Set<ClassPath> deniedClasses, Set<ClassPath> rejectedClasses,
+                       Map<ClassPath, BaseType> predefinedTypes, Multimap<ClassPath, BaseType> convertibles,
+                       Map<ClassPath, String> pluginModules, Map<String, Pair<Collection<String>, Code>> globals) {
+            this.basePath = basePath;
+            this.scriptPath = scriptPath;
+            this.recordedClasses = recordedClasses;
+            this.deniedClasses = deniedClasses;
+            this.rejectedClasses = rejectedClasses;
+            this.predefinedTypes = predefinedTypes;
+            this.convertibles = convertibles;
+            this.pluginModules = pluginModules;
+            this.globals = globals;
+        }
+
+        private static Script capture(ScriptDump dump, Path gameFolder) {
+            Set<ClassPath> recordedClasses = new HashSet<>();
+            Set<ClassPath> deniedClasses = new HashSet<>();
+            for (Clazz clazz : dump.recordedClasses) {
+                recordedClasses.add(clazz.classPath);
+                if (!dump.transpiler.isAllowed(clazz)) deniedClasses.add(clazz.classPath);
+            }
+
+            Map<ClassPath, BaseType> predefinedTypes = new HashMap<>();
+            dump.transpiler.typeConverter.predefinedTypes.forEach((classPath, type) ->
+                    predefinedTypes.put(classPath, PrerenderedType.of(type)));
+            Multimap<ClassPath, BaseType> convertibles = ArrayListMultimap.create();
+            dump.getConvertibles().forEach((classPath, type) ->
+                    convertibles.put(classPath, PrerenderedType.of(type)));
+
+            Map<String, Pair<Collection<String>, Code>> globals = new LinkedHashMap<>();
+            for (Map.Entry<String, Pair<Collection<String>, Wrapped.Global>> entry : dump.globals.entrySet()) {
+                globals.put(entry.getKey(), new Pair<>(
+                        List.copyOf(entry.getValue().getFirst()),
+                        PrerenderedCode.of(entry.getValue().getSecond().codes)
+                ));
+            }
+
+            return new Script(
+                    gameFolder.relativize(dump.basePath).toString(),
+                    gameFolder.relativize(dump.scriptPath).toString(),
+                    recordedClasses, deniedClasses, new HashSet<>(dump.transpiler.rejectedClasses),
+                    predefinedTypes, convertibles,
+                    new HashMap<>(dump.pluginModules), globals
+            );
+        }
+
+        /**
+         * Creates a script dump that writes to the same places relative to the game folder.
+         */
+        public ScriptDump createDump(Path gameFolder, String probeVersion) {
+            Transpiler transpiler = new Transpiler(null, clazz -> !deniedClasses.contains(clazz.classPath));
+            ScriptDump dump = new ScriptDump(
+                    gameFolder.resolve(basePath),
+                    gameFolder.resolve(scriptPath),
+                    clazz -> recordedClasses.contains(clazz.classPath),
+                    transpiler,
+                    probeVersion
+            );
+            dump.plugins = List.of(new SnapshotPlugin(this));
+            return dump;
+        }
+
+        private void write(SnapshotOutput output) throws IOException {
+            output.writeString(basePath);
+            output.writeString(scriptPath);
+            output.writeClassPaths(recordedClasses);
+            output.writeClassPaths(deniedClasses);
+            output.writeClassPaths(rejectedClasses);
+
+            output.writeInt(predefinedTypes.size());
+            for (Map.Entry<ClassPath, BaseType> entry : predefinedTypes.entrySet()) {
+                output.writeClassPath(entry.getKey());
+                output.writeBaseType(entry.getValue());
+            }
+
+            output.writeInt(convertibles.size());
+            for (Map.Entry<ClassPath, BaseType> entry : convertibles.entries()) {
+                output.writeClassPath(entry.getKey());
+                output.writeBaseType(entry.getValue());
+            }
+
+            output.writeInt(pluginModules.size());
+            for (Map.Entry<ClassPath, String> entry : pluginModules.entrySet()) {
+                output.writeClassPath(entry.getKey());
+                output.writeString(entry.getValue());
+            }
+
+            output.writeInt(globals.size());
+            for (Map.Entry<String, Pair<Collection<String>, Code>> entry : globals.entrySet()) {
+                output.writeString(entry.getKey());
+                output.writeStrings(entry.getValue().getFirst());
+                output.writeCode((PrerenderedCode) entry.getValue().getSecond());
+            }
+        }
+
+        private static Script read(SnapshotInput input) throws IOException {
+            String basePath = input.readString();
+            String scriptPath = input.readString();
+            Set<ClassPath> recordedClasses = new HashSet<>(input.readClassPaths());
+            Set<ClassPath> deniedClasses = new HashSet<>(input.readClassPaths());
+            Set<ClassPath> rejectedClasses = new HashSet<>(input.readClassPaths());
+
+            Map<ClassPath, BaseType> predefinedTypes = new HashMap<>();
+            int predefinedCount = input.readInt();
+            for (int i = 0; i < predefinedCount; i++) {
+                predefinedTypes.put(input.readClassPath(), input.readBaseType());
+            }
+
+            Multimap<ClassPath, BaseType> convertibles = ArrayListMultimap.create();
+            int convertibleCount = input.readInt();
+            for (int i = 0; i < convertibleCount; i++) {
+                convertibles.put(input.readClassPath(), input.readBaseType());
+            }
+
+            Map<ClassPath, String> pluginModules = new HashMap<>();
+            int moduleCount = input.readInt();
+            for (int i = 0; i < moduleCount; i++) {
+                pluginModules.put(input.readClassPath(), input.readString());
+            }
+
+            Map<String, Pair<Collection<String>, Code>> globals = new LinkedHashMap<>();
+            int globalCount = input.readInt();
+            for (int i = 0; i < globalCount; i++) {
+                String identifier = input.readString();
+                Collection<String> excludedNames = input.readStrings();
+                globals.put(identifier, new Pair<>(excludedNames, input.readCode()));
+            }
+
+            return new Script(
+                    basePath, scriptPath,
+                    recordedClasses, deniedClasses, rejectedClasses,
+                    predefinedTypes, convertibles,
+                    pluginModules, globals
+            );
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import moe.wolfgirl.probejs.DumpTelemetry;
+import moe.wolfgirl.probejs.ProbeJS;
+import moe.wolfgirl.probejs.lang.transpiler.ClassDeclCache;
+import moe.wolfgirl.probejs.lang.typescript.ScriptDump;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dumps the typings from a snapshot exported by the game, without launching the game.
+ * <br>
+ * Usage: {@code OfflineDump <snapshot> <output folder>}, the output folder is laid
+ * out like the game folder, so the typings are written to {@code <output folder>/.probe}.
+ */
+public class OfflineDump {
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: OfflineDump <snapshot> <output folder>");
+            System.exit(2);
+        }
+        Path snapshotPath = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+
+        DumpTelemetry telemetry = new DumpTelemetry();
+        DumpSnapshot snapshot;
+        try (var ignored = telemetry.time("snapshot/read")) {
+            snapshot = DumpSnapshot.readFrom(snapshotPath);
+        }
+        ProbeJS.LOGGER.info("Read %s classes from %s".formatted(snapshot.classes.size(), snapshotPath));
+
+        ClassDeclCache classDeclCache = new ClassDeclCache();
+        List<ScriptDump> scriptDumps = new ArrayList<>();
+        for (DumpSnapshot.Script script : snapshot.scripts) {
+            ScriptDump scriptDump = script.createDump(output, snapshot.probeVersion);
+            scriptDump.transpiler.useCache(classDeclCache);
+            scriptDump.telemetry = telemetry;
+            scriptDumps.add(scriptDump);
+        }
+
+        AtomicBoolean failed = new AtomicBoolean(false);
+        scriptDumps.parallelStream().forEach(scriptDump -> {
+            try (var ignored = scriptDump.time("accept")) {
+                scriptDump.acceptClasses(snapshot.classes);
+            }
+            try {
+                scriptDump.dump();
+                ProbeJS.LOGGER.info("Dumped %s".formatted(scriptDump.basePath));
+            } catch (Throwable e) {
+                failed.set(true);
+                ProbeJS.LOGGER.error("Failed to dump %s".formatted(scriptDump.basePath), e);
+            }
+        });
+
+        telemetry.writeTo(output.resolve("dump_report.json"));
+        ProbeJS.LOGGER.info("Dump finished in %.1fs".formatted(telemetry.getElapsedNanos() / 1e9));
+        for (DumpTelemetry.Stage stage : telemetry.getSlowest(5)) {
+            ProbeJS.LOGGER.info("%s: %.2fs, CPU %.2fs, %d MB allocated".formatted(
+                    stage.name,
+                    stage.getWallNanos() / 1e9,
+                    stage.getCpuNanos() / 1e9,
+                    stage.getAllocatedBytes() / (1024 * 1024)
+            ));
+        }
+        if (failed.get()) System.exit(1);
+    }
+}
@@ -0,0 +1,34 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.typescript.Declaration;
+
+/**
+ * Formats class references as placeholders, so formatted code can be saved and
+ * resolved later by the declaration of the file it ends up in.
+ */
+class PlaceholderDeclaration extends Declaration {
+    private static final char MARK = '\u0000';
+
+    @Override
+    public String getSymbol(ClassPath path, boolean input) {
+        return MARK + (input ? "I" : "R") + path.getClassPath() + MARK;
+    }
+
+    static String resolve(String text, Declaration declaration) {
+        int start = text.indexOf(MARK);
+        if (start == -1) return text;
+
+        StringBuilder builder = new StringBuilder(text.length());
+        int last = 0;
+        while (start != -1) {
+            int end = text.indexOf(MARK, start + 1);
+            boolean input = text.charAt(start + 1) == 'I';
+            ClassPath classPath = ClassPath.of(text.substring(start + 2, end));
+            builder.append(text, last, start).append(declaration.getSymbol(classPath, input));
+            last = end + 1;
+            start = text.indexOf(MARK, last);
+        }
+        return builder.append(text, last, text.length()).toString();
+    }
+}
@@ -0,0 +1,45 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.typescript.Declaration;
+import moe.wolfgirl.probejs.lang.typescript.code.Code;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Code formatted in game, see {@link PrerenderedType}.
+ */
+class PrerenderedCode extends Code {
+    final List<ClassPath> usedClassPaths;
+    final List<String> lines;
+
+    PrerenderedCode(List<ClassPath> usedClassPaths, List<String> lines) {
+        this.usedClassPaths = usedClassPaths;
+        this.lines = lines;
+    }
+
+    static PrerenderedCode of(Collection<Code> codes) {
+        Declaration declaration = new PlaceholderDeclaration();
+        Set<ClassPath> usedClassPaths = new LinkedHashSet<>();
+        List<String> lines = new ArrayList<>();
+        for (Code code : codes) {
+            usedClassPaths.addAll(code.getUsedClassPaths());
+            lines.addAll(code.format(declaration));
+        }
+        return new PrerenderedCode(List.copyOf(usedClassPaths), lines);
+    }
+
+    @Override
+    public Collection<ClassPath> getUsedClassPaths() {
+        return usedClassPaths;
+    }
+
+    @Override
+    public List<String> format(Declaration declaration) {
+        return lines.stream().map(line -> PlaceholderDeclaration.resolve(line, declaration)).toList();
+    }
+}
@@ -0,0 +1,50 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import moe.wolfgirl.probejs.ProbeJS;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.typescript.Declaration;
+import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
+import moe.wolfgirl.probejs.lang.typescript.code.type.Types;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A type formatted in game, so it can be formatted again without the things
+ * it was made from, e.g. registries or lambdas of a CustomType.
+ */
+class PrerenderedType extends BaseType {
+    final List<ClassPath> usedClassPaths;
+    final String[] formatted;
+
+    PrerenderedType(List<ClassPath> usedClassPaths, String[] formatted) {
+        this.usedClassPaths = usedClassPaths;
+        this.formatted = formatted;
+    }
+
+    static BaseType of(BaseType type) {
+        // Types.ANY is compared by identity in the transpiler, so it must be kept
+        if (type == Types.ANY || type instanceof PrerenderedType) return type;
+        try {
+            Declaration declaration = new PlaceholderDeclaration();
+            String[] formatted = Arrays.stream(FormatType.values())
+                    .map(formatType -> String.join("\n", type.format(declaration, formatType)))
+                    .toArray(String[]::new);
+            return new PrerenderedType(List.copyOf(type.getUsedClassPaths()), formatted);
+        } catch (Throwable e) {
+            ProbeJS.LOGGER.warn("Failed to format %s for the snapshot, it will be any".formatted(type.getClass().getSimpleName()));
+            return Types.ANY;
+        }
+    }
+
+    @Override
+    public Collection<ClassPath> getUsedClassPaths() {
+        return usedClassPaths;
+    }
+
+    @Override
+    public List<String> format(Declaration declaration, FormatType input) {
+        return List.of(PlaceholderDeclaration.resolve(formatted[input.ordinal()], declaration).split("\n", -1));
+    }
+}
@@ -0,0 +1,38 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * Answers the calls to an annotation read from a snapshot or a class file with its values.
+ */
+public class SnapshotAnnotation implements InvocationHandler {
+    private final Class<?> type;
+    private final Map<String, Object> values;
+
+    SnapshotAnnotation(Class<?> type, Map<String, Object> values) {
+        this.type = type;
+        this.values = values;
+    }
+
+    /**
+     * @param values the values of all the elements, converted to their return types
+     */
+    public static Annotation create(Class<?> type, Map<String, Object> values, ClassLoader classLoader) {
+        return (Annotation) Proxy.newProxyInstance(classLoader, new Class<?>[]{type}, new SnapshotAnnotation(type, values));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "annotationType" -> type;
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> "@%s%s".formatted(type.getName(), values);
+            default -> values.get(method.getName());
+        };
+    }
+}
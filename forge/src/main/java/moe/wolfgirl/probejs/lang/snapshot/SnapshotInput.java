@@ -0,0 +1,326 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import com.mojang.datafixers.util.Either;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
+import moe.wolfgirl.probejs.lang.java.clazz.members.ConstructorInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.FieldInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.MethodInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.ParamInfo;
+import moe.wolfgirl.probejs.lang.java.type.TypeAdapter;
+import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
+import moe.wolfgirl.probejs.lang.java.type.impl.*;
+import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
+import moe.wolfgirl.probejs.lang.typescript.code.type.Types;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static moe.wolfgirl.probejs.lang.snapshot.SnapshotOutput.*;
+
+/**
+ * Reads what is written by {@link SnapshotOutput}.
+ * <br>
+ * Annotations are made again as proxies if their types and the classes in their
+ * values can be loaded, otherwise they are dropped.
+ */
+class SnapshotInput implements Closeable {
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+    static {
+        for (Class<?> primitive : new Class<?>[]{
+                boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class, void.class
+        }) {
+            PRIMITIVES.put(primitive.getName(), primitive);
+        }
+    }
+
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<>();
+    private final ClassLoader classLoader;
+    private final boolean resolveClasses;
+
+    SnapshotInput(InputStream stream) {
+        this(stream, SnapshotInput.class.getClassLoader(), false);
+    }
+
+    /**
+     * @param resolveClasses if the classes should be loaded too, the input fails if one can't be loaded
+     */
+    SnapshotInput(InputStream stream, ClassLoader classLoader, boolean resolveClasses) {
+        this.in = new DataInputStream(new BufferedInputStream(stream));
+        this.classLoader = classLoader;
+        this.resolveClasses = resolveClasses;
+    }
+
+    int readInt() throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte read;
+        do {
+            read = in.readByte();
+            value |= (read & 0x7F) << shift;
+            shift += 7;
+        } while ((read & 0x80) != 0);
+        return value;
+    }
+
+    int readRawInt() throws IOException {
+        return in.readInt();
+    }
+
+    long readLong() throws IOException {
+        return in.readLong();
+    }
+
+    boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    String readString() throws IOException {
+        int index = readInt();
+        if (index != 0) return strings.get(index - 1);
+        byte[] bytes = new byte[readInt()];
+        in.readFully(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(value);
+        return value;
+    }
+
+    List<String> readStrings() throws IOException {
+        int size = readInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) values.add(readString());
+        return values;
+    }
+
+    ClassPath readClassPath() throws IOException {
+        return ClassPath.of(readString());
+    }
+
+    List<ClassPath> readClassPaths() throws IOException {
+        int size = readInt();
+        List<ClassPath> classPaths = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) classPaths.add(readClassPath());
+        return classPaths;
+    }
+
+    @Nullable
+    private Class<?> readClass() throws IOException {
+        String name = readString();
+        if (!resolveClasses) return null;
+        Class<?> primitive = PRIMITIVES.get(name);
+        if (primitive != null) return primitive;
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IOException("Class %s can't be loaded".formatted(name), e);
+        }
+    }
+
+    Clazz readClazz() throws IOException {
+        ClassPath classPath = readClassPath();
+        Class<?> original = readClass();
+        List<VariableType> variableTypes = readVariables();
+        Annotation[] annotations = readAnnotations();
+
+        int constructorCount = readInt();
+        List<ConstructorInfo> constructors = new ArrayList<>(constructorCount);
+        for (int i = 0; i < constructorCount; i++) {
+            List<VariableType> constructorVariables = readVariables();
+            Annotation[] constructorAnnotations = readAnnotations();
+            constructors.add(new ConstructorInfo(constructorVariables, constructorAnnotations, readParams()));
+        }
+
+        int fieldCount = readInt();
+        List<FieldInfo> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            String name = readString();
+            TypeDescriptor type = readType();
+            FieldInfo.FieldAttributes attributes = new FieldInfo.FieldAttributes(readBoolean(), readBoolean());
+            fields.add(new FieldInfo(name, type, attributes, readAnnotations()));
+        }
+
+        int methodCount = readInt();
+        List<MethodInfo> methods = new ArrayList<>(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            String name = readString();
+            List<ParamInfo> params = readParams();
+            TypeDescriptor returnType = readType();
+            MethodInfo.MethodAttributes attributes = new MethodInfo.MethodAttributes(readBoolean(), readBoolean(), readBoolean());
+            List<VariableType> methodVariables = readVariables();
+            methods.add(new MethodInfo(name, params, returnType, attributes, methodVariables, readAnnotations()));
+        }
+
+        TypeDescriptor superClass = readBoolean() ? readType() : null;
+        List<TypeDescriptor> interfaces = readTypes();
+
+        Clazz.ClassType type = Clazz.ClassType.values()[readInt()];
+        boolean isAbstract = readBoolean();
+        Clazz.ClassAttribute attribute = new Clazz.ClassAttribute(type, isAbstract, new HashSet<>(readClassPaths()));
+        long fingerprint = readLong();
+
+        return new Clazz(original, classPath, variableTypes, annotations,
+                constructors, fields, methods,
+                superClass, interfaces,
+                attribute, fingerprint);
+    }
+
+    private List<ParamInfo> readParams() throws IOException {
+        int size = readInt();
+        List<ParamInfo> params = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = readString();
+            TypeDescriptor type = readType();
+            boolean varArgs = readBoolean();
+            params.add(new ParamInfo(name, type, varArgs, readAnnotations()));
+        }
+        return params;
+    }
+
+    private List<VariableType> readVariables() throws IOException {
+        int size = readInt();
+        List<VariableType> variableTypes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) variableTypes.add((VariableType) readType());
+        return variableTypes;
+    }
+
+    private List<TypeDescriptor> readTypes() throws IOException {
+        int size = readInt();
+        List<TypeDescriptor> types = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) types.add(readType());
+        return types;
+    }
+
+    TypeDescriptor readType() throws IOException {
+        int kind = readInt();
+        Annotation[] annotations = readAnnotations();
+        return TypeAdapter.intern(switch (kind) {
+            case CLASS_TYPE -> new ClassType(annotations, readClassPath(), readClass());
+            case ARRAY_TYPE -> new ArrayType(annotations, readType());
+            case PARAM_TYPE -> new ParamType(annotations, readType(), readTypes());
+            case VARIABLE_TYPE -> new VariableType(annotations, readString(), readTypes());
+            case WILDCARD_TYPE -> new WildcardType(annotations, switch (readInt()) {
+                case 1 -> Optional.of(Either.<TypeDescriptor, TypeDescriptor>left(readType()));
+                case 2 -> Optional.of(Either.<TypeDescriptor, TypeDescriptor>right(readType()));
+                default -> Optional.empty();
+            });
+            default -> throw new IOException("Unknown type kind %d in snapshot".formatted(kind));
+        });
+    }
+
+    Annotation[] readAnnotations() throws IOException {
+        int size = readInt();
+        if (size == 0) return new Annotation[0];
+        List<Annotation> annotations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Annotation annotation = createAnnotation(readAnnotation());
+            if (annotation != null) annotations.add(annotation);
+        }
+        return annotations.toArray(Annotation[]::new);
+    }
+
+    private AnnotationData readAnnotation() throws IOException {
+        String type = readString();
+        int size = readInt();
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            values.put(readString(), readValue());
+        }
+        return new AnnotationData(type, values);
+    }
+
+    private Object readValue() throws IOException {
+        int kind = readInt();
+        return switch (kind) {
+            case BOOLEAN -> readBoolean();
+            case BYTE -> in.readByte();
+            case CHAR -> in.readChar();
+            case SHORT -> in.readShort();
+            case INT -> in.readInt();
+            case LONG -> in.readLong();
+            case FLOAT -> in.readFloat();
+            case DOUBLE -> in.readDouble();
+            case STRING -> readString();
+            case CLASS -> new ClassName(readString());
+            case ENUM -> new EnumName(readString());
+            case ANNOTATION -> readAnnotation();
+            case ARRAY -> {
+                Object[] values = new Object[readInt()];
+                for (int i = 0; i < values.length; i++) values[i] = readValue();
+                yield values;
+            }
+            default -> throw new IOException("Unknown annotation value kind %d in snapshot".formatted(kind));
+        };
+    }
+
+    private Annotation createAnnotation(AnnotationData data) {
+        try {
+            Class<?> type = Class.forName(data.type, false, classLoader);
+            if (!type.isAnnotation()) return null;
+
+            Map<String, Object> values = new HashMap<>();
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.getParameterCount() != 0) continue;
+                Object value = data.values.containsKey(method.getName()) ?
+                        convertValue(data.values.get(method.getName()), method.getReturnType()) :
+                        method.getDefaultValue();
+                if (value == null) return null;
+                values.put(method.getName(), value);
+            }
+            return SnapshotAnnotation.create(type, values, classLoader);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // The type or the values are not available here
+            return null;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object convertValue(Object value, Class<?> type) throws ClassNotFoundException {
+        if (type.isArray()) {
+            Object[] values = (Object[]) value;
+            Object array = Array.newInstance(type.getComponentType(), values.length);
+            for (int i = 0; i < values.length; i++) {
+                Object converted = convertValue(values[i], type.getComponentType());
+                if (converted == null) return null;
+                Array.set(array, i, converted);
+            }
+            return array;
+        }
+        if (value instanceof ClassName className) return Class.forName(className.name, false, classLoader);
+        if (value instanceof EnumName enumName) return Enum.valueOf((Class<Enum>) type, enumName.name);
+        if (value instanceof AnnotationData annotation) return createAnnotation(annotation);
+        return value;
+    }
+
+    BaseType readBaseType() throws IOException {
+        if (!readBoolean()) return Types.ANY;
+        List<ClassPath> usedClassPaths = readClassPaths();
+        return new PrerenderedType(usedClassPaths, readStrings().toArray(String[]::new));
+    }
+
+    PrerenderedCode readCode() throws IOException {
+        List<ClassPath> usedClassPaths = readClassPaths();
+        return new PrerenderedCode(usedClassPaths, readStrings());
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private record AnnotationData(String type, Map<String, Object> values) {
+    }
+
+    private record ClassName(String name) {
+    }
+
+    private record EnumName(String name) {
+    }
+}
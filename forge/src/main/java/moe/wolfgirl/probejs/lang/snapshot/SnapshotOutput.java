@@ -0,0 +1,306 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
+import moe.wolfgirl.probejs.lang.java.clazz.members.ConstructorInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.FieldInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.MethodInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.ParamInfo;
+import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
+import moe.wolfgirl.probejs.lang.java.type.impl.*;
+import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes the class model and formatted code of a snapshot.
+ * <br>
+ * Strings are written once, and referred by their index after that. Classes are
+ * written with their names in the game too, so they can be found again in game.
+ */
+class SnapshotOutput implements Closeable {
+    static final int CLASS_TYPE = 0, ARRAY_TYPE = 1, PARAM_TYPE = 2, VARIABLE_TYPE = 3, WILDCARD_TYPE = 4;
+    static final int BOOLEAN = 0, BYTE = 1, CHAR = 2, SHORT = 3, INT = 4, LONG = 5, FLOAT = 6, DOUBLE = 7,
+            STRING = 8, CLASS = 9, ENUM = 10, ANNOTATION = 11, ARRAY = 12;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    SnapshotOutput(OutputStream stream) {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream));
+    }
+
+    void writeInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    void writeRawInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        out.writeLong(value);
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    void writeString(String value) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeInt(index + 1);
+            return;
+        }
+        strings.put(value, strings.size());
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(0);
+        writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    void writeStrings(Collection<String> values) throws IOException {
+        writeInt(values.size());
+        for (String value : values) writeString(value);
+    }
+
+    void writeClassPath(ClassPath classPath) throws IOException {
+        writeString(classPath.getClassPath());
+    }
+
+    void writeClassPaths(Collection<ClassPath> classPaths) throws IOException {
+        writeInt(classPaths.size());
+        for (ClassPath classPath : classPaths) writeClassPath(classPath);
+    }
+
+    void writeClazz(Clazz clazz) throws IOException {
+        writeClassPath(clazz.classPath);
+        writeString(clazz.original == null ? "" : clazz.original.getName());
+        writeVariables(clazz.variableTypes);
+        writeAnnotations(clazz.getAnnotations());
+
+        writeInt(clazz.getConstructors().size());
+        for (ConstructorInfo constructor : clazz.getConstructors()) {
+            writeVariables(constructor.variableTypes);
+            writeAnnotations(constructor.getAnnotations());
+            writeParams(constructor.params);
+        }
+
+        writeInt(clazz.getFields().size());
+        for (FieldInfo field : clazz.getFields()) {
+            writeString(field.name);
+            writeType(field.type);
+            writeBoolean(field.attributes.isFinal);
+            writeBoolean(field.attributes.isStatic);
+            writeAnnotations(field.getAnnotations());
+        }
+
+        writeInt(clazz.getMethods().size());
+        for (MethodInfo method : clazz.getMethods()) {
+            writeString(method.name);
+            writeParams(method.params);
+            writeType(method.returnType);
+            writeBoolean(method.attributes.isStatic);
+            writeBoolean(method.attributes.isDefault);
+            writeBoolean(method.attributes.isAbstract);
+            writeVariables(method.variableTypes);
+            writeAnnotations(method.getAnnotations());
+        }
+
+        writeBoolean(clazz.superClass != null);
+        if (clazz.superClass != null) writeType(clazz.superClass);
+        writeTypes(clazz.interfaces);
+
+        writeInt(clazz.attribute.type.ordinal());
+        writeBoolean(clazz.attribute.isAbstract);
+        writeClassPaths(clazz.attribute.introducedTypes);
+        writeLong(clazz.getFingerprint());
+    }
+
+    private void writeParams(List<ParamInfo> params) throws IOException {
+        writeInt(params.size());
+        for (ParamInfo param : params) {
+            writeString(param.name);
+            writeType(param.type);
+            writeBoolean(param.varArgs);
+            writeAnnotations(param.getAnnotations());
+        }
+    }
+
+    private void writeVariables(List<VariableType> variableTypes) throws IOException {
+        writeInt(variableTypes.size());
+        for (VariableType variableType : variableTypes) writeType(variableType);
+    }
+
+    private void writeTypes(List<TypeDescriptor> types) throws IOException {
+        writeInt(types.size());
+        for (TypeDescriptor type : types) writeType(type);
+    }
+
+    void writeType(TypeDescriptor type) throws IOException {
+        if (type instanceof ClassType classType) {
+            writeInt(CLASS_TYPE);
+            writeAnnotations(type.getAnnotations());
+            writeClassPath(classType.classPath);
+            writeString(classType.clazz == null ? "" : classType.clazz.getName());
+        } else if (type instanceof ArrayType arrayType) {
+            writeInt(ARRAY_TYPE);
+            writeAnnotations(type.getAnnotations());
+            writeType(arrayType.component);
+        } else if (type instanceof ParamType paramType) {
+            writeInt(PARAM_TYPE);
+            writeAnnotations(type.getAnnotations());
+            writeType(paramType.base);
+            writeTypes(paramType.params);
+        } else if (type instanceof VariableType variableType) {
+            writeInt(VARIABLE_TYPE);
+            writeAnnotations(type.getAnnotations());
+            writeString(variableType.symbol);
+            writeTypes(variableType.descriptors);
+        } else if (type instanceof WildcardType wildcardType) {
+            writeInt(WILDCARD_TYPE);
+            writeAnnotations(type.getAnnotations());
+            var bound = wildcardType.bound.orElse(null);
+            if (bound == null) {
+                writeInt(0);
+            } else if (bound.left().isPresent()) {
+                writeInt(1);
+                writeType(bound.left().get());
+            } else {
+                writeInt(2);
+                writeType(bound.right().orElseThrow());
+            }
+        } else {
+            throw new IOException("Unknown subclass of TypeDescriptor.");
+        }
+    }
+
+    /**
+     * Writes the annotations by their type names and values.
+     * <br>
+     * Annotations with values that can't be read are skipped, e.g. the ones not exported by their module.
+     */
+    void writeAnnotations(Annotation[] annotations) throws IOException {
+        List<Map.Entry<String, Map<String, Object>>> readable = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            try {
+                readable.add(Map.entry(annotation.annotationType().getName(), getValues(annotation)));
+            } catch (Throwable ignored) {
+            }
+        }
+
+        writeInt(readable.size());
+        for (Map.Entry<String, Map<String, Object>> annotation : readable) {
+            writeAnnotation(annotation.getKey(), annotation.getValue());
+        }
+    }
+
+    private static Map<String, Object> getValues(Annotation annotation) throws ReflectiveOperationException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Method method : annotation.annotationType().getDeclaredMethods()) {
+            if (method.getParameterCount() != 0) continue;
+            method.setAccessible(true);
+            Object value = method.invoke(annotation);
+            if (value instanceof Annotation nested) {
+                value = Map.entry(nested.annotationType().getName(), getValues(nested));
+            } else if (value instanceof Annotation[] nested) {
+                Object[] converted = new Object[nested.length];
+                for (int i = 0; i < nested.length; i++) {
+                    converted[i] = Map.entry(nested[i].annotationType().getName(), getValues(nested[i]));
+                }
+                value = converted;
+            }
+            values.put(method.getName(), value);
+        }
+        return values;
+    }
+
+    private void writeAnnotation(String type, Map<String, Object> values) throws IOException {
+        writeString(type);
+        writeInt(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            writeString(entry.getKey());
+            writeValue(entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValue(Object value) throws IOException {
+        if (value instanceof Boolean b) {
+            writeInt(BOOLEAN);
+            writeBoolean(b);
+        } else if (value instanceof Byte b) {
+            writeInt(BYTE);
+            out.writeByte(b);
+        } else if (value instanceof Character c) {
+            writeInt(CHAR);
+            out.writeChar(c);
+        } else if (value instanceof Short s) {
+            writeInt(SHORT);
+            out.writeShort(s);
+        } else if (value instanceof Integer i) {
+            writeInt(INT);
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            writeInt(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Float f) {
+            writeInt(FLOAT);
+            out.writeFloat(f);
+        } else if (value instanceof Double d) {
+            writeInt(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof String s) {
+            writeInt(STRING);
+            writeString(s);
+        } else if (value instanceof Class<?> c) {
+            writeInt(CLASS);
+            writeString(c.getName());
+        } else if (value instanceof Enum<?> e) {
+            writeInt(ENUM);
+            writeString(e.name());
+        } else if (value instanceof Map.Entry<?, ?> annotation) {
+            writeInt(ANNOTATION);
+            writeAnnotation((String) annotation.getKey(), (Map<String, Object>) annotation.getValue());
+        } else if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            writeInt(ARRAY);
+            writeInt(length);
+            for (int i = 0; i < length; i++) writeValue(Array.get(value, i));
+        } else {
+            throw new IOException("Unknown annotation value: %s".formatted(value));
+        }
+    }
+
+    /**
+     * Writes a type formatted by {@link PrerenderedType}, any other type is written as any.
+     */
+    void writeBaseType(BaseType type) throws IOException {
+        if (!(type instanceof PrerenderedType prerendered)) {
+            writeBoolean(false);
+            return;
+        }
+        writeBoolean(true);
+        writeClassPaths(prerendered.usedClassPaths);
+        writeStrings(List.of(prerendered.formatted));
+    }
+
+    void writeCode(PrerenderedCode code) throws IOException {
+        writeClassPaths(code.usedClassPaths);
+        writeStrings(code.lines);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,51 @@
+package moe.wolfgirl.probejs.lang.snapshot;
+
+import com.mojang.datafixers.util.Pair;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.transpiler.Transpiler;
+import moe.wolfgirl.probejs.lang.transpiler.TypeConverter;
+import moe.wolfgirl.probejs.lang.typescript.ScriptDump;
+import moe.wolfgirl.probejs.lang.typescript.TypeScriptFile;
+import moe.wolfgirl.probejs.lang.typescript.code.Code;
+import moe.wolfgirl.probejs.plugin.ProbeJSPlugin;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Does what the plugins did to a script dump in game, from a snapshot.
+ */
+class SnapshotPlugin extends ProbeJSPlugin {
+    private final DumpSnapshot.Script script;
+
+    SnapshotPlugin(DumpSnapshot.Script script) {
+        this.script = script;
+    }
+
+    @Override
+    public void addPredefinedTypes(TypeConverter converter) {
+        script.predefinedTypes.forEach(converter::addType);
+    }
+
+    @Override
+    public void denyTypes(Transpiler transpiler) {
+        transpiler.rejectedClasses.addAll(script.rejectedClasses);
+    }
+
+    @Override
+    public void assignType(ScriptDump scriptDump) {
+        script.convertibles.forEach(scriptDump::assignType);
+    }
+
+    @Override
+    public void modifyClasses(ScriptDump scriptDump, Map<ClassPath, TypeScriptFile> globalClasses) {
+        scriptDump.pluginModules.putAll(script.pluginModules);
+    }
+
+    @Override
+    public void addGlobals(ScriptDump scriptDump) {
+        for (Map.Entry<String, Pair<Collection<String>, Code>> entry : script.globals.entrySet()) {
+            scriptDump.addGlobal(entry.getKey(), entry.getValue().getFirst(), entry.getValue().getSecond());
+        }
+    }
+}
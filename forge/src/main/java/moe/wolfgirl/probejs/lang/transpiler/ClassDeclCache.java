@@ -0,0 +1,60 @@
+package moe.wolfgirl.probejs.lang.transpiler;
+
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
+import moe.wolfgirl.probejs.lang.typescript.code.member.ClassDecl;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Shares the transpiled ClassDecls between the script dumps, so a class used
+ * by several script types is only transpiled once.
+ * <br>
+ * The transpilation of a class doesn't depend on the script type, anything
+ * specific to a script type is applied on the copy handed to the dump, so plugins
+ * can still modify the decls freely. Which members are left to {@code extends} depends
+ * on the classes in the dump, so a class is transpiled again for each set of extended classes.
+ */
+public class ClassDeclCache {
+    private final Map<Key, CompletableFuture<Optional<ClassDecl>>> transpiled = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a copy of the transpiled class, transpiling it if no one did it before.
+     * <br>
+     * If another thread is transpiling the class, this waits for the result instead
+     * of doing it again.
+     *
+     * @return the copied ClassDecl, or null if the class is not going to be dumped
+     */
+    @Nullable
+    public ClassDecl get(Clazz clazz, List<Clazz> extended, BiFunction<Clazz, List<Clazz>, ClassDecl> transpile) {
+        Key key = new Key(clazz.classPath, extended.stream().map(parent -> parent.classPath).toList());
+        CompletableFuture<Optional<ClassDecl>> result = transpiled.get(key);
+        if (result == null) {
+            CompletableFuture<Optional<ClassDecl>> created = new CompletableFuture<>();
+            result = transpiled.putIfAbsent(key, created);
+            if (result == null) {
+                result = created;
+                try {
+                    created.complete(Optional.ofNullable(transpile.apply(clazz, extended)));
+                } catch (Throwable t) {
+                    created.completeExceptionally(t);
+                }
+            }
+        }
+        return result.join().map(ClassDecl::copy).orElse(null);
+    }
+
+    public int size() {
+        return transpiled.size();
+    }
+
+    private record Key(ClassPath classPath, List<ClassPath> extended) {
+    }
+}
@@ -1,9 +1,14 @@
 package moe.wolfgirl.probejs.lang.transpiler;
 
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
 import moe.wolfgirl.probejs.lang.java.clazz.members.ConstructorInfo;
 import moe.wolfgirl.probejs.lang.java.clazz.members.FieldInfo;
 import moe.wolfgirl.probejs.lang.java.clazz.members.MethodInfo;
+import moe.wolfgirl.probejs.lang.java.clazz.members.ParamInfo;
+import moe.wolfgirl.probejs.lang.java.type.TypeDescriptor;
+import moe.wolfgirl.probejs.lang.java.type.impl.ClassType;
+import moe.wolfgirl.probejs.lang.java.type.impl.ParamType;
 import moe.wolfgirl.probejs.lang.java.type.impl.VariableType;
 import moe.wolfgirl.probejs.lang.transpiler.members.Constructor;
 import moe.wolfgirl.probejs.lang.transpiler.members.Converter;
@@ -14,9 +19,10 @@ import moe.wolfgirl.probejs.lang.typescript.code.member.*;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 import moe.wolfgirl.probejs.lang.typescript.code.type.TSVariableType;
 import moe.wolfgirl.probejs.lang.typescript.code.type.Types;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 
 public class ClassTranspiler extends Converter<Clazz, ClassDecl> {
 
@@ -33,6 +39,14 @@ public class ClassTranspiler extends Converter<Clazz, ClassDecl> {
 
     @Override
     public ClassDecl transpile(Clazz input) {
+        return transpile(input, List.of());
+    }
+
+    /**
+     * @param extended the classes the declaration gets members from through {@code extends},
+     *                 see {@link #getExtendedClasses}
+     */
+    public ClassDecl transpile(Clazz input, List<Clazz> extended) {
         List<TSVariableType> variableTypes = new ArrayList<>();
         for (VariableType variableType : input.variableTypes) {
             variableTypes.add((TSVariableType) converter.convertType(variableType));
@@ -56,23 +70,156 @@ public class ClassTranspiler extends Converter<Clazz, ClassDecl> {
                                 variableTypes
                         );
 
-        for (FieldInfo fieldInfo : input.fields) {
+        for (FieldInfo fieldInfo : getFields(input, extended)) {
             var fieldDecl = field.transpile(fieldInfo);
             ClassTransformer.transformFields(fieldInfo, fieldDecl);
             decl.fields.add(fieldDecl);
         }
 
-        for (MethodInfo methodInfo : input.methods) {
+        for (MethodInfo methodInfo : getMethods(input, extended)) {
             var methodDecl = method.transpile(methodInfo);
             ClassTransformer.transformMethods(methodInfo, methodDecl);
             decl.methods.add(methodDecl);
         }
 
-        for (ConstructorInfo constructorInfo : input.constructors) {
+        for (ConstructorInfo constructorInfo : input.getConstructors()) {
             var constructorDecl = constructor.transpile(constructorInfo);
             ClassTransformer.transformConstructors(constructorInfo, constructorDecl);
             decl.constructors.add(constructorDecl);
         }
         return decl;
     }
+
+    /**
+     * Gets the classes whose members the declaration of the class gets through {@code extends}.
+     * <br>
+     * For classes, it's the chain of super classes, up to the first one not dumped. For
+     * interfaces, it's the super interfaces dumped, and theirs. A class replaced by a
+     * predefined type is not what the declaration extends, so it counts as not dumped.
+     *
+     * @param dumpedClasses gets the class if it's dumped in the same dump and not rejected, or null
+     */
+    public List<Clazz> getExtendedClasses(Clazz input, Function<ClassPath, Clazz> dumpedClasses) {
+        List<Clazz> extended = new ArrayList<>();
+        if (input.attribute.isInterface) {
+            Set<ClassPath> visited = new HashSet<>();
+            Deque<Clazz> toVisit = new ArrayDeque<>();
+            toVisit.add(input);
+            while (!toVisit.isEmpty()) {
+                for (TypeDescriptor superInterface : toVisit.poll().interfaces) {
+                    Clazz parent = getDumpedClass(superInterface, dumpedClasses);
+                    if (parent == null || !visited.add(parent.classPath)) continue;
+                    extended.add(parent);
+                    toVisit.add(parent);
+                }
+            }
+            return extended;
+        }
+
+        Set<ClassPath> visited = new HashSet<>();
+        Clazz parent = getDumpedClass(input.superClass, dumpedClasses);
+        while (parent != null && visited.add(parent.classPath)) {
+            extended.add(parent);
+            parent = getDumpedClass(parent.superClass, dumpedClasses);
+        }
+        return extended;
+    }
+
+    @Nullable
+    private Clazz getDumpedClass(@Nullable TypeDescriptor type, Function<ClassPath, Clazz> dumpedClasses) {
+        if (type instanceof ParamType paramType) type = paramType.base;
+        if (!(type instanceof ClassType classType)) return null;
+        if (converter.predefinedTypes.containsKey(classType.classPath)) return null;
+        return dumpedClasses.apply(classType.classPath);
+    }
+
+    /**
+     * Fields of the class, without the ones a super class has the same.
+     * <br>
+     * Interfaces keep all of their fields, as the fields of interfaces are in namespaces.
+     */
+    private static List<FieldInfo> getFields(Clazz input, List<Clazz> extended) {
+        List<FieldInfo> fields = input.getFields();
+        if (extended.isEmpty() || input.attribute.isInterface) return fields;
+
+        Map<String, List<FieldInfo>> parentFields = new HashMap<>();
+        for (Clazz parent : extended) {
+            for (FieldInfo parentField : parent.getFields()) {
+                parentFields.computeIfAbsent(parentField.name, k -> new ArrayList<>()).add(parentField);
+            }
+        }
+        return fields.stream()
+                .filter(fieldInfo -> parentFields.getOrDefault(fieldInfo.name, List.of())
+                        .stream()
+                        .noneMatch(parentField -> isSameField(fieldInfo, parentField)))
+                .toList();
+    }
+
+    /**
+     * Methods of the class, without the ones a parent has the same. If a method is kept,
+     * all methods with the same name are kept too, as TypeScript hides the inherited overloads.
+     * <br>
+     * Static methods of interfaces are in namespaces, so they are all kept. Overrides of
+     * abstract methods are kept in classes, or the class would be abstract in TypeScript.
+     */
+    private static List<MethodInfo> getMethods(Clazz input, List<Clazz> extended) {
+        List<MethodInfo> methods = input.getMethods();
+        if (extended.isEmpty()) return methods;
+
+        Map<String, List<MethodInfo>> parentMethods = new HashMap<>();
+        for (Clazz parent : extended) {
+            for (MethodInfo parentMethod : parent.getMethods()) {
+                parentMethods.computeIfAbsent(parentMethod.name, k -> new ArrayList<>()).add(parentMethod);
+            }
+        }
+
+        boolean isInterface = input.attribute.isInterface;
+        Set<String> declaredNames = new HashSet<>();
+        for (MethodInfo methodInfo : methods) {
+            boolean inherited = !(isInterface && methodInfo.attributes.isStatic) &&
+                    parentMethods.getOrDefault(methodInfo.name, List.of())
+                            .stream()
+                            .anyMatch(parentMethod -> isSameMethod(methodInfo, parentMethod, isInterface));
+            if (!inherited) declaredNames.add(getOverloadKey(methodInfo));
+        }
+        return methods.stream()
+                .filter(methodInfo -> declaredNames.contains(getOverloadKey(methodInfo)))
+                .toList();
+    }
+
+    private static String getOverloadKey(MethodInfo methodInfo) {
+        return methodInfo.attributes.isStatic ? "static " + methodInfo.name : methodInfo.name;
+    }
+
+    // Types without annotations are interned, so the same types are the same instances
+
+    private static boolean isSameField(FieldInfo fieldInfo, FieldInfo parentField) {
+        return fieldInfo.name.equals(parentField.name) &&
+                fieldInfo.attributes.isStatic == parentField.attributes.isStatic &&
+                fieldInfo.type == parentField.type;
+    }
+
+    private static boolean isSameMethod(MethodInfo methodInfo, MethodInfo parentMethod, boolean isInterface) {
+        if (!methodInfo.name.equals(parentMethod.name) ||
+                methodInfo.attributes.isStatic != parentMethod.attributes.isStatic ||
+                (!isInterface && parentMethod.attributes.isAbstract) ||
+                methodInfo.returnType != parentMethod.returnType ||
+                methodInfo.params.size() != parentMethod.params.size() ||
+                methodInfo.variableTypes.size() != parentMethod.variableTypes.size()) {
+            return false;
+        }
+        // Annotations might be documented, so an annotated override is kept unless it's the same
+        if (methodInfo.getAnnotations().length != 0 && !Arrays.equals(methodInfo.getAnnotations(), parentMethod.getAnnotations())) {
+            return false;
+        }
+        for (int i = 0; i < methodInfo.params.size(); i++) {
+            ParamInfo param = methodInfo.params.get(i);
+            ParamInfo parentParam = parentMethod.params.get(i);
+            if (param.type != parentParam.type || param.varArgs != parentParam.varArgs) return false;
+        }
+        for (int i = 0; i < methodInfo.variableTypes.size(); i++) {
+            if (methodInfo.variableTypes.get(i) != parentMethod.variableTypes.get(i)) return false;
+        }
+        return true;
+    }
 }
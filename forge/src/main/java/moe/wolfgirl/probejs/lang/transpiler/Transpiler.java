@@ -8,8 +8,12 @@ import moe.wolfgirl.probejs.plugin.ProbeJSPlugin;
 import moe.wolfgirl.probejs.lang.transpiler.transformation.ClassTransformer;
 import moe.wolfgirl.probejs.lang.typescript.TypeScriptFile;
 import moe.wolfgirl.probejs.lang.typescript.code.member.ClassDecl;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Converts a Clazz into a TypeScriptFile ready for dump.
@@ -17,47 +21,123 @@ import java.util.*;
 public class Transpiler {
     public final TypeConverter typeConverter;
     public final Set<ClassPath> rejectedClasses = new HashSet<>();
-    private final ScriptManager scriptManager;
+    private final Predicate<Clazz> classFilter;
+    @Nullable
+    private ClassDeclCache cache;
+    private ClassTranspiler classTranspiler;
 
     public Transpiler(ScriptManager manager) {
-        this.scriptManager = manager;
+        // Classes read from class files have no runtime class, but their names are not remapped either
+        this(manager, clazz -> manager.isClassAllowed(clazz.original != null ? clazz.original.getName() : clazz.classPath.getClassPathJava()));
+    }
+
+    /**
+     * @param manager     the script manager, or null if the dump is not in game
+     * @param classFilter tests if the class can be loaded by scripts
+     */
+    public Transpiler(@Nullable ScriptManager manager, Predicate<Clazz> classFilter) {
+        this.classFilter = classFilter;
         this.typeConverter = new TypeConverter(manager);
     }
 
     public void reject(Class<?> clazz) {
-        rejectedClasses.add(new ClassPath(clazz));
+        rejectedClasses.add(ClassPath.of(clazz));
     }
 
-    public Map<ClassPath, TypeScriptFile> dump(Collection<Clazz> clazzes) {
-        ProbeJSPlugin.forEachPlugin(plugin -> {
-            plugin.addPredefinedTypes(typeConverter);
-            plugin.denyTypes(this);
-        });
+    /**
+     * Shares the transpiled classes with other transpilers using the same cache.
+     * <br>
+     * The transpilers must have the same predefined and rejected types, which
+     * is the case for the script dumps as plugins can't tell them apart there.
+     */
+    public void useCache(@Nullable ClassDeclCache cache) {
+        this.cache = cache;
+    }
 
-        ClassTranspiler transpiler = new ClassTranspiler(typeConverter);
-        Map<ClassPath, TypeScriptFile> result = new HashMap<>();
+    /**
+     * Lets a plugin add predefined and rejected types, must be called before {@link #init()}.
+     */
+    public void addPluginTypes(ProbeJSPlugin plugin) {
+        plugin.addPredefinedTypes(typeConverter);
+        plugin.denyTypes(this);
+    }
 
-        for (Clazz clazz : clazzes) {
-            if (rejectedClasses.contains(clazz.classPath) || clazz.hasAnnotation(HideFromJS.class)) {
-                continue;
-            }
-            ClassDecl classDecl = transpiler.transpile(clazz);
-            ClassTransformer.transformClass(clazz, classDecl);
+    /**
+     * Gets ready for transpiling, must be called before transpiling.
+     */
+    public void init() {
+        classTranspiler = new ClassTranspiler(typeConverter);
+    }
 
-            if (!scriptManager.isClassAllowed(clazz.original.getName())) {
-                classDecl.addComment(
-                        "This class is not allowed By KubeJS!",
-                        "You should not load the class, or KubeJS will throw an error.",
-                        "Loading the class using require() will not throw an error, but the class will be undefined."
-                );
-            }
+    public boolean isRejected(Clazz clazz) {
+        return rejectedClasses.contains(clazz.classPath) || clazz.hasAnnotation(HideFromJS.class);
+    }
 
-            TypeScriptFile scriptFile = new TypeScriptFile(clazz.classPath);
-            scriptFile.addCode(classDecl);
+    public boolean isAllowed(Clazz clazz) {
+        return classFilter.test(clazz);
+    }
 
-            result.put(clazz.classPath, scriptFile);
+    public Map<ClassPath, TypeScriptFile> dump(Collection<Clazz> clazzes) {
+        ProbeJSPlugin.forEachPlugin(this::addPluginTypes);
+        init();
+
+        // Classes are independent of each other, so they are transpiled in parallel,
+        // in the pool the dump is running in
+        return clazzes.parallelStream()
+                .map(this::transpile)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(file -> file.classPath, file -> file, (a, b) -> a, HashMap::new));
+    }
+
+    /**
+     * Transpiles a class into a file, {@link #init()} must be called first.
+     *
+     * @return the file, or null if the class is rejected
+     */
+    @Nullable
+    public TypeScriptFile transpile(Clazz clazz) {
+        return transpile(clazz, classPath -> null);
+    }
+
+    /**
+     * Transpiles a class into a file, leaving out the members it gets through {@code extends}
+     * from the other classes in the dump.
+     *
+     * @param dumpedClasses gets a class in the same dump by its path, or null if it's not in it
+     * @return the file, or null if the class is rejected
+     */
+    @Nullable
+    public TypeScriptFile transpile(Clazz clazz, Function<ClassPath, Clazz> dumpedClasses) {
+        List<Clazz> extended = classTranspiler.getExtendedClasses(clazz, classPath -> {
+            Clazz parent = dumpedClasses.apply(classPath);
+            return parent == null || isRejected(parent) ? null : parent;
+        });
+        ClassDecl classDecl = cache == null ?
+                transpileClass(clazz, extended) :
+                cache.get(clazz, extended, this::transpileClass);
+        if (classDecl == null) return null;
+
+        if (!isAllowed(clazz)) {
+            classDecl.addComment(
+                    "This class is not allowed By KubeJS!",
+                    "You should not load the class, or KubeJS will throw an error.",
+                    "Loading the class using require() will not throw an error, but the class will be undefined."
+            );
         }
 
-        return result;
+        TypeScriptFile scriptFile = new TypeScriptFile(clazz.classPath);
+        scriptFile.addCode(classDecl);
+        return scriptFile;
+    }
+
+    /**
+     * Transpiles the parts of a class that are the same for every script type.
+     */
+    @Nullable
+    private ClassDecl transpileClass(Clazz clazz, List<Clazz> extended) {
+        if (isRejected(clazz)) return null;
+        ClassDecl classDecl = classTranspiler.transpile(clazz, extended);
+        ClassTransformer.transformClass(clazz, classDecl);
+        return classDecl;
     }
 }
@@ -9,11 +9,14 @@ import moe.wolfgirl.probejs.lang.java.type.impl.*;
 import moe.wolfgirl.probejs.lang.typescript.code.member.ParamDecl;
 import moe.wolfgirl.probejs.lang.typescript.code.type.*;
 import moe.wolfgirl.probejs.lang.typescript.code.type.js.*;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Adapts a TypeDescriptor into a BaseType
@@ -27,31 +30,71 @@ public class TypeConverter {
         }
     };
 
-    public final Map<ClassPath, BaseType> predefinedTypes = new HashMap<>();
+    private final Map<ClassPath, BaseType> types = new HashMap<>();
+    /**
+     * Read-only, change it with addType, so the converted types are dropped.
+     */
+    public final Map<ClassPath, BaseType> predefinedTypes = Collections.unmodifiableMap(types);
+    @Nullable
     public final ScriptManager scriptManager;
 
-    public TypeConverter(ScriptManager manager) {
+    /**
+     * Converted descriptors, by identity since most descriptors are interned.
+     * Replaced as a whole when the predefined types change.
+     */
+    private volatile Map<Converted, BaseType> converted = new ConcurrentHashMap<>();
+
+    private record Converted(TypeDescriptor descriptor) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Converted other && other.descriptor == descriptor;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(descriptor);
+        }
+    }
+
+    public TypeConverter(@Nullable ScriptManager manager) {
         this.scriptManager = manager;
     }
 
     public void addType(Class<?> clazz, BaseType type) {
-        predefinedTypes.put(new ClassPath(clazz), type);
+        addType(ClassPath.of(clazz), type);
+    }
+
+    public void addType(ClassPath classPath, BaseType type) {
+        types.put(classPath, type);
+        converted = new ConcurrentHashMap<>();
     }
 
     public BaseType convertType(TypeDescriptor descriptor) {
+        Map<Converted, BaseType> cache = converted;
+        Converted key = new Converted(descriptor);
+        BaseType type = cache.get(key);
+        if (type == null) {
+            type = convert(descriptor);
+            BaseType previous = cache.putIfAbsent(key, type);
+            if (previous != null) type = previous;
+        }
+        return type;
+    }
+
+    private BaseType convert(TypeDescriptor descriptor) {
         if (descriptor instanceof ClassType classType) {
             return predefinedTypes.getOrDefault(
                     classType.classPath,
-                    new TSClassType(classType.classPath)
+                    Types.type(classType.classPath)
             );
         } else if (descriptor instanceof ArrayType arrayType) {
             return new TSArrayType(convertType(arrayType.component));
         } else if (descriptor instanceof ParamType paramType) {
             Generics generics = paramType.getAnnotation(Generics.class);
             if (generics != null) {
-                BaseType baseType = new TSClassType(new ClassPath(generics.base()));
+                BaseType baseType = Types.type(generics.base());
                 List<BaseType> params = Arrays.stream(generics.value())
-                        .map(c -> (BaseType) new TSClassType(new ClassPath(c)))
+                        .map(c -> (BaseType) Types.type(c))
                         .toList();
                 return new TSParamType(baseType, params);
             }
@@ -157,7 +200,7 @@ public class TypeConverter {
                 content = content.substring(PROBEJS_PREFIX.length());
                 String[] parts = content.split("\\.");
                 parts[parts.length - 1] = "$" + parts[parts.length - 1];
-                return new TSClassType(new ClassPath(Arrays.stream(parts).toList()));
+                return Types.type(ClassPath.of(Arrays.stream(parts).toList()));
             } else {
                 return Types.primitive(content);
             }
@@ -20,6 +20,9 @@ import java.util.Map;
  * Inject [index: string | number]: V; for Map<K, V>.
  */
 public class InjectArray implements ClassTransformer {
+    private static final ClassPath ITERABLE = ClassPath.of(Iterable.class);
+    private static final ClassPath LIST = ClassPath.of(List.class);
+    private static final ClassPath MAP = ClassPath.of(Map.class);
 
     static class FormattedLine extends Code {
         private final String line;
@@ -43,7 +46,7 @@ public class InjectArray implements ClassTransformer {
 
     @Override
     public void transform(Clazz clazz, ClassDecl classDecl) {
-        if (isDirectlyImplementing(clazz.original, Iterable.class)) {
+        if (isDirectlyImplementing(clazz, ITERABLE)) {
             BaseType iterType = classDecl.methods.stream()
                     .filter(m -> m.name.equals("iterator"))
                     .filter(m -> m.returnType instanceof TSParamType)
@@ -57,7 +60,7 @@ public class InjectArray implements ClassTransformer {
         }
 
         // AbstractCollection is not a List, and AbstractList is not directly implementing Iterable
-        if (isDirectlyImplementing(clazz.original, List.class)) {
+        if (isDirectlyImplementing(clazz, LIST)) {
             BaseType iterType = classDecl.methods.stream()
                     .filter(m -> m.name.equals("iterator") && m.params.isEmpty())
                     .filter(m -> m.returnType instanceof TSParamType)
@@ -68,7 +71,7 @@ public class InjectArray implements ClassTransformer {
         }
 
 
-        if (isDirectlyImplementing(clazz.original, Map.class)) {
+        if (isDirectlyImplementing(clazz, MAP)) {
             BaseType valueType = classDecl.methods.stream()
                     .filter(m -> m.name.equals("get") && m.params.size() == 1)
                     .map(m -> m.returnType)
@@ -78,10 +81,7 @@ public class InjectArray implements ClassTransformer {
         }
     }
 
-    private boolean isDirectlyImplementing(Class<?> toExamine, Class<?> target) {
-        if (!target.isAssignableFrom(toExamine)) return false;
-        Class<?> superClass = toExamine.getSuperclass();
-        if (superClass == null || superClass == Object.class) return true;
-        return !target.isAssignableFrom(superClass);
+    private boolean isDirectlyImplementing(Clazz toExamine, ClassPath target) {
+        return toExamine.attribute.introducedTypes.contains(target);
     }
 }
@@ -2,7 +2,9 @@ package moe.wolfgirl.probejs.lang.typescript;
 
 import com.mojang.datafixers.util.Pair;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -14,12 +16,24 @@ public class Declaration {
 
     public final Map<ClassPath, Reference> references;
     private final Map<ClassPath, Pair<String, String>> symbols;
+    /**
+     * The names taken by symbols, and the next suffix to try for each name.
+     * Taken names are never freed, so the suffixes tried before stay taken.
+     */
+    private final Set<String> symbolNames;
+    private final Map<String, Integer> nextSuffixes;
 
     private final Set<String> excludedName;
+    /**
+     * Formatted types, symbols never change once given, so neither do the lines.
+     */
+    private final Map<BaseType.FormatType, Map<BaseType, String>> lines = new EnumMap<>(BaseType.FormatType.class);
 
     public Declaration() {
         this.references = new HashMap<>();
         this.symbols = new HashMap<>();
+        this.symbolNames = new HashSet<>();
+        this.nextSuffixes = new HashMap<>();
         this.excludedName = new HashSet<>();
     }
 
@@ -35,10 +49,11 @@ public class Declaration {
 
     private void putSymbolName(ClassPath path, String name) {
         symbols.put(path, new Pair<>(name, INPUT_TEMPLATE.formatted(name)));
+        symbolNames.add(name);
     }
 
     private boolean containsSymbol(String name) {
-        return excludedName.contains(name) || symbols.containsValue(new Pair<>(name, INPUT_TEMPLATE.formatted(name)));
+        return excludedName.contains(name) || symbolNames.contains(name);
     }
 
 
@@ -47,10 +62,11 @@ public class Declaration {
             String name = path.getName();
             if (!containsSymbol(name)) putSymbolName(path, name);
             else {
-                int counter = 0;
+                int counter = nextSuffixes.getOrDefault(name, 0);
                 while (containsSymbol(SYMBOL_TEMPLATE.formatted(name, counter))) {
                     counter++;
                 }
+                nextSuffixes.put(name, counter + 1);
                 putSymbolName(path, SYMBOL_TEMPLATE.formatted(name, counter));
             }
         }
@@ -58,6 +74,17 @@ public class Declaration {
         return symbols.get(path);
     }
 
+    public String getLine(BaseType type, BaseType.FormatType formatType) {
+        Map<BaseType, String> formatted = lines.computeIfAbsent(formatType, t -> new HashMap<>());
+        String line = formatted.get(type);
+        if (line == null) {
+            // Not computeIfAbsent, formatting the type formats the inner types too
+            line = type.format(this, formatType).get(0);
+            formatted.put(type, line);
+        }
+        return line;
+    }
+
     public String getSymbol(ClassPath path) {
         return getSymbol(path, false);
     }
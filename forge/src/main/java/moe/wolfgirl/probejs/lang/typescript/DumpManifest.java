@@ -0,0 +1,85 @@
+package moe.wolfgirl.probejs.lang.typescript;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import moe.wolfgirl.probejs.ProbeJS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the fingerprints of the classes in each package file of the last dump.
+ * <br>
+ * If all classes in a file have the same fingerprints as before, the file will
+ * have the same content, so it doesn't need to be transpiled and written again.
+ */
+public class DumpManifest {
+    private static final int VERSION = 1;
+
+    private final Path path;
+    private final long salt;
+    private final Map<String, Map<String, Long>> previous = new HashMap<>();
+    private final Map<String, Map<String, Long>> current = new ConcurrentHashMap<>();
+
+    private DumpManifest(Path path, long salt) {
+        this.path = path;
+        this.salt = salt;
+    }
+
+    /**
+     * Loads the manifest, the previous fingerprints are discarded if the salt changed,
+     * as the salt covers everything affecting all the classes.
+     */
+    public static DumpManifest load(Path path, long salt) {
+        DumpManifest manifest = new DumpManifest(path, salt);
+        if (Files.notExists(path)) return manifest;
+
+        try (var reader = Files.newBufferedReader(path)) {
+            JsonObject json = ProbeJS.GSON.fromJson(reader, JsonObject.class);
+            if (json.get("version").getAsInt() != VERSION || json.get("salt").getAsLong() != salt) {
+                return manifest;
+            }
+            for (var file : json.getAsJsonObject("files").entrySet()) {
+                Map<String, Long> fingerprints = new HashMap<>();
+                for (var entry : file.getValue().getAsJsonObject().entrySet()) {
+                    fingerprints.put(entry.getKey(), entry.getValue().getAsLong());
+                }
+                manifest.previous.put(file.getKey(), fingerprints);
+            }
+        } catch (Throwable e) {
+            ProbeJS.LOGGER.warn("Failed to read dump manifest, all files will be dumped again");
+            manifest.previous.clear();
+        }
+        return manifest;
+    }
+
+    public boolean isUnchanged(String file, Map<String, Long> fingerprints) {
+        return Objects.equals(previous.get(file), fingerprints);
+    }
+
+    public void record(String file, Map<String, Long> fingerprints) {
+        current.put(file, fingerprints);
+    }
+
+    public void write() throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("version", VERSION);
+        json.addProperty("salt", salt);
+        JsonObject files = new JsonObject();
+        for (Map.Entry<String, Map<String, Long>> file : current.entrySet()) {
+            JsonObject fingerprints = new JsonObject();
+            file.getValue().forEach(fingerprints::addProperty);
+            files.add(file.getKey(), fingerprints);
+        }
+        json.add("files", files);
+
+        try (JsonWriter jsonWriter = ProbeJS.GSON.newJsonWriter(Files.newBufferedWriter(path))) {
+            ProbeJS.GSON.toJson(json, JsonObject.class, jsonWriter);
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package moe.wolfgirl.probejs.lang.typescript;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.hash.Hasher;
 import com.google.gson.JsonObject;
 import com.google.gson.stream.JsonWriter;
 import com.mojang.datafixers.util.Pair;
+import dev.architectury.platform.Platform;
 import dev.latvian.mods.kubejs.KubeJS;
 import dev.latvian.mods.kubejs.KubeJSPaths;
 import dev.latvian.mods.kubejs.script.ScriptManager;
 import dev.latvian.mods.kubejs.script.ScriptType;
 import dev.latvian.mods.kubejs.server.ServerScriptManager;
 import dev.latvian.mods.kubejs.util.UtilsJS;
+import moe.wolfgirl.probejs.DumpJob;
+import moe.wolfgirl.probejs.DumpTelemetry;
 import moe.wolfgirl.probejs.ProbeJS;
 import moe.wolfgirl.probejs.ProbePaths;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassFingerprint;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
 import moe.wolfgirl.probejs.plugin.ProbeJSPlugin;
@@ -24,15 +31,23 @@ import moe.wolfgirl.probejs.lang.typescript.code.ts.Wrapped;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 import moe.wolfgirl.probejs.lang.typescript.code.type.Types;
 import moe.wolfgirl.probejs.lang.typescript.code.type.js.JSJoinedType;
+import moe.wolfgirl.probejs.lang.typescript.code.type.js.JSPrimitiveType;
 import moe.wolfgirl.probejs.utils.JsonUtils;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.module.ModuleDescriptor;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -41,6 +56,13 @@ import java.util.function.Supplier;
  * maintaining the file structures
  */
 public class ScriptDump {
+    public static final String MANIFEST = "manifest.json";
+    /**
+     * Bumped when the same classes are dumped differently, so the files of the last dump are not reused.
+     */
+    private static final int FORMAT = 5;
+    private static final String LITERALS_PACKAGE = "moe.wolfgirl.probejs.generated.literals.";
+
     public static final Supplier<ScriptDump> SERVER_DUMP = () -> new ScriptDump(
             ServerScriptManager.getScriptManager(),
             ProbePaths.PROBE.resolve("server"),
@@ -70,7 +92,13 @@ public class ScriptDump {
             (clazz -> true)
     );
 
+    /**
+     * The script type, null if the dump is made from a snapshot.
+     */
     public final ScriptType scriptType;
+    /**
+     * The script manager, null if the dump is made from a snapshot.
+     */
     public final ScriptManager manager;
     public final Path basePath;
     public final Path scriptPath;
@@ -78,18 +106,59 @@ public class ScriptDump {
     public final Transpiler transpiler;
     public final Set<Clazz> recordedClasses = new HashSet<>();
     private final Predicate<Clazz> accept;
-    private final Multimap<ClassPath, BaseType> convertibles = ArrayListMultimap.create();
-    public int dumped = 0;
-    public int total = 0;
+    private final ListMultimap<ClassPath, BaseType> convertibles = ArrayListMultimap.create();
+    public final AtomicInteger dumped = new AtomicInteger();
+    public final AtomicInteger total = new AtomicInteger();
+    /**
+     * Modules formatted from the files touched or added by plugins, as they can't
+     * be made from the classes alone. Modules put here by plugins are used as is.
+     */
+    public final Map<ClassPath, String> pluginModules = new ConcurrentHashMap<>();
+    /**
+     * Classes not discovered because of the discovery limits, and the number of their
+     * type variables. They are dumped as any, so the classes using them still compile.
+     */
+    public final Map<ClassPath, Integer> stubClasses = new HashMap<>();
+    /**
+     * Classes failed to format in this dump, they are not recorded in the manifest
+     * so the next dump tries them again.
+     */
+    private final Set<ClassPath> failedClasses = ConcurrentHashMap.newKeySet();
+    public final String probeVersion;
+    public DumpTelemetry telemetry = new DumpTelemetry();
+    /**
+     * Literal unions of at least this many members assigned to more than one class
+     * share an alias, 0 to keep them inline.
+     */
+    public int literalUnionAliasSize = 0;
+    @Nullable
+    public DumpJob job = null;
+    /**
+     * Plugins used in the dump, or null to use all the plugins.
+     */
+    @Nullable
+    public Collection<ProbeJSPlugin> plugins = null;
 
     public ScriptDump(ScriptManager manager, Path basePath, Path scriptPath, Predicate<Clazz> scriptPredicate) {
-        this.scriptType = manager.scriptType;
+        this(manager, basePath, scriptPath, scriptPredicate, new Transpiler(manager), Platform.getMod(ProbeJS.MOD_ID).getVersion());
+    }
+
+    /**
+     * Creates a dump that is not bound to a script manager, e.g. a dump from a snapshot.
+     */
+    public ScriptDump(Path basePath, Path scriptPath, Predicate<Clazz> scriptPredicate, Transpiler transpiler, String probeVersion) {
+        this(null, basePath, scriptPath, scriptPredicate, transpiler, probeVersion);
+    }
+
+    private ScriptDump(@Nullable ScriptManager manager, Path basePath, Path scriptPath, Predicate<Clazz> scriptPredicate, Transpiler transpiler, String probeVersion) {
+        this.scriptType = manager == null ? null : manager.scriptType;
         this.manager = manager;
         this.basePath = basePath;
         this.scriptPath = scriptPath;
-        this.transpiler = new Transpiler(manager);
+        this.transpiler = transpiler;
         this.globals = new HashMap<>();
         this.accept = scriptPredicate;
+        this.probeVersion = probeVersion;
     }
 
     public void acceptClasses(Collection<Clazz> classes) {
@@ -100,18 +169,22 @@ public class ScriptDump {
 
     public Set<Class<?>> retrieveClasses() {
         Set<Class<?>> classes = new HashSet<>();
-        ProbeJSPlugin.forEachPlugin(plugin -> classes.addAll(plugin.provideJavaClass(this)));
+        forEachPlugin("provideJavaClass", plugin -> classes.addAll(plugin.provideJavaClass(this)));
         return classes;
     }
 
     public void assignType(Class<?> classPath, BaseType type) {
-        assignType(new ClassPath(classPath), type);
+        assignType(ClassPath.of(classPath), type);
     }
 
     public void assignType(ClassPath classPath, BaseType type) {
         convertibles.put(classPath, type);
     }
 
+    public Multimap<ClassPath, BaseType> getConvertibles() {
+        return Multimaps.unmodifiableMultimap(convertibles);
+    }
+
     public void addGlobal(String identifier, Code... content) {
         addGlobal(identifier, List.of(), content);
     }
@@ -154,95 +227,359 @@ public class ScriptDump {
     }
 
     public void dumpClasses() throws IOException {
-        dumped = 0;
-        total = 0;
-        ProbeJSPlugin.forEachPlugin(plugin -> plugin.assignType(this));
-
-        Map<String, BufferedWriter> files = new HashMap<>();
-        Map<ClassPath, TypeScriptFile> globalClasses = transpiler.dump(recordedClasses);
-        ProbeJSPlugin.forEachPlugin(plugin -> plugin.modifyClasses(this, globalClasses));
-        total = globalClasses.size();
-        for (Map.Entry<ClassPath, TypeScriptFile> entry : globalClasses.entrySet()) {
-            try {
-                ClassPath classPath = entry.getKey();
-                TypeScriptFile output = entry.getValue();
-                ClassDecl classDecl = output.findCode(ClassDecl.class).orElse(null);
-                if (classDecl == null) continue;
-
-                // Add all assignable types
-                // type ExportedType = ConvertibleTypes
-                // declare global {
-                //     type Type_ = ExportedType
-                // }
-                String symbol = classPath.getName() + "_";
-                String exportedSymbol = Declaration.INPUT_TEMPLATE.formatted(classPath.getName());
-                BaseType exportedType = Types.type(classPath);
-                BaseType thisType = Types.type(classPath);
-                List<String> generics = classDecl.variableTypes.stream().map(v -> v.symbol).toList();
-
-                if (generics.size() != 0) {
-                    String suffix = "<%s>".formatted(String.join(", ", generics));
-                    symbol = symbol + suffix;
-                    exportedSymbol = exportedSymbol + suffix;
-                    thisType = Types.parameterized(thisType, generics.stream().map(Types::generic).toArray(BaseType[]::new));
-                    exportedType = Types.parameterized(exportedType, generics.stream().map(Types::generic).toArray(BaseType[]::new));
+        dumped.set(0);
+        total.set(0);
+        pluginModules.clear();
+        forEachPlugin("assignType", plugin -> plugin.assignType(this));
+        aliasLiteralUnions();
+
+        forEachPlugin("addPredefinedTypes", transpiler::addPluginTypes);
+        try (var ignored = time("init")) {
+            transpiler.init();
+        }
+        TranspiledFiles globalClasses = new TranspiledFiles(transpiler, recordedClasses, stage("transpile"));
+        forEachPlugin("modifyClasses", plugin -> plugin.modifyClasses(this, globalClasses));
+        for (Map.Entry<ClassPath, Integer> stub : stubClasses.entrySet()) {
+            ClassPath classPath = stub.getKey();
+            if (globalClasses.containsKey(classPath) || transpiler.rejectedClasses.contains(classPath)) continue;
+            pluginModules.putIfAbsent(classPath, formatStub(classPath, stub.getValue()));
+        }
+        globalClasses.addFormatted(pluginModules.keySet());
+        total.set(globalClasses.size());
+
+        // Group the classes by the file they will be written to, so each file can be a task
+        Map<String, List<ClassPath>> packages = new HashMap<>();
+        for (ClassPath classPath : globalClasses.getClassPaths()) {
+            List<String> parts = classPath.parts();
+            if (parts.size() < 2) continue;
+            var fileKey = "%s.%s".formatted(parts.get(0), parts.get(1));
+            packages.computeIfAbsent(fileKey, k -> new ArrayList<>()).add(classPath);
+        }
+
+        DumpManifest manifest = DumpManifest.load(basePath.resolve(MANIFEST), getSalt());
+        Path packageFolder = getPackageFolder();
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        DumpTelemetry.Stage emitStage = stage("emit");
+        packages.entrySet().parallelStream().forEach(pkg -> {
+            try (var ignored = emitStage.start()) {
+                if (emitPackage(pkg.getKey(), pkg.getValue(), globalClasses, manifest, packageFolder)) {
+                    written.add(pkg.getKey());
+                }
+            }
+        });
+
+        // Remove files of packages that are no longer dumped
+        try (var files = Files.list(packageFolder)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.endsWith(".d.ts") || fileName.equals("index.d.ts")) continue;
+                if (!written.contains(fileName.substring(0, fileName.length() - ".d.ts".length()))) {
+                    Files.deleteIfExists(file);
                 }
-                exportedType = Types.ignoreContext(exportedType, BaseType.FormatType.INPUT);
-                thisType = Types.ignoreContext(thisType, BaseType.FormatType.RETURN);
-
-                List<BaseType> allTypes = new ArrayList<>(convertibles.get(classPath));
-                allTypes.add(thisType);
-                TypeDecl convertibleType = new TypeDecl(
-                        exportedSymbol,
-                        new JSJoinedType.Union(allTypes)
-                );
-                TypeDecl globalType = new TypeDecl(
-                        symbol,
-                        exportedType
-                );
-                Wrapped.Global typeExport = new Wrapped.Global();
-                typeExport.addCode(globalType);
-                convertibleType.addComment("""
-                        Class-specific type exported by ProbeJS, use global Type_
-                        types for convenience unless there's a naming conflict.
-                        """);
-                typeExport.addComment("""
-                        Global type exported for convenience, use class-specific
-                        types if there's a naming conflict.
-                        """);
-                output.addCode(convertibleType);
-                output.addCode(typeExport);
-
-                var fileKey = "%s.%s".formatted(classPath.parts().get(0), classPath.parts().get(1));
-                BufferedWriter writer = files.computeIfAbsent(fileKey, key -> {
-                    try {
-                        return Files.newBufferedWriter(getPackageFolder().resolve(key + ".d.ts"));
-                    } catch (IOException e) {
-                        ProbeJS.LOGGER.error("Failed to write %s.d.ts".formatted(key));
-                        return null;
-                    }
-                });
-                if (writer != null) output.writeAsModule(writer);
-                dumped++;
-            } catch (Throwable t) {
-                t.printStackTrace();
             }
         }
 
-        try (var writer = Files.newBufferedWriter(getPackageFolder().resolve("index.d.ts"))) {
-            for (Map.Entry<String, BufferedWriter> entry : files.entrySet()) {
-                String key = entry.getKey();
-                BufferedWriter value = entry.getValue();
+        try (var writer = Files.newBufferedWriter(packageFolder.resolve("index.d.ts"))) {
+            for (String key : written.stream().sorted().toList()) {
                 writer.write("/// <reference path=%s />\n".formatted(ProbeJS.GSON.toJson(key + ".d.ts")));
-                value.close();
             }
         }
+        manifest.write();
+    }
+
+    /**
+     * Writes the file of a package, unless all classes in it are unchanged.
+     *
+     * @return if the package file exists after this
+     */
+    private boolean emitPackage(String key, List<ClassPath> classPaths, TranspiledFiles globalClasses, DumpManifest manifest, Path packageFolder) {
+        Path packageFile = packageFolder.resolve(key + ".d.ts");
+        classPaths.sort(Comparator.comparing(ClassPath::getClassPath));
+
+        // Files touched by plugins are formatted here, as what plugins did
+        // to them can only be known from the output
+        Map<ClassPath, String> formatted = new ConcurrentHashMap<>();
+        Map<String, Long> fingerprints = new ConcurrentHashMap<>();
+        classPaths.parallelStream().forEach(classPath -> fingerprints.put(
+                classPath.getClassPath(),
+                getFingerprint(globalClasses, classPath, formatted)
+        ));
+
+        if (Files.exists(packageFile) && manifest.isUnchanged(key, fingerprints)) {
+            reportDumped(classPaths.size() - formatted.size());
+            recordPackage(key, classPaths, fingerprints, manifest);
+            stage("emit/unchanged").count(1);
+            return true;
+        }
+
+        List<String> modules = classPaths.parallelStream()
+                .map(classPath -> formatted.containsKey(classPath) ?
+                        formatted.get(classPath) :
+                        formatClass(classPath, globalClasses.getFile(classPath)))
+                .filter(Objects::nonNull)
+                .filter(module -> !module.isEmpty())
+                .toList();
+        if (modules.isEmpty()) return false;
+
+        try (var writer = Files.newBufferedWriter(packageFile)) {
+            for (String module : modules) {
+                writer.write(module);
+            }
+            recordPackage(key, classPaths, fingerprints, manifest);
+            stage("emit").count(1);
+            return true;
+        } catch (IOException e) {
+            ProbeJS.LOGGER.error("Failed to write %s.d.ts".formatted(key), e);
+            return false;
+        }
+    }
+
+    private void recordPackage(String key, List<ClassPath> classPaths, Map<String, Long> fingerprints, DumpManifest manifest) {
+        for (ClassPath classPath : classPaths) {
+            if (failedClasses.contains(classPath)) fingerprints.remove(classPath.getClassPath());
+        }
+        manifest.record(key, fingerprints);
+    }
+
+    /**
+     * The fingerprint of a class file is made of the class and its assigned types,
+     * and also its output if it is touched by plugins or added by plugins.
+     */
+    private long getFingerprint(TranspiledFiles files, ClassPath classPath, Map<ClassPath, String> formatted) {
+        checkCancelled();
+        Hasher hasher = ClassFingerprint.HASH.newHasher();
+        Clazz clazz = files.getClazz(classPath);
+        if (clazz != null) {
+            hasher.putLong(clazz.getFingerprint());
+            hasher.putBoolean(transpiler.isAllowed(clazz));
+            hashTypes(hasher, convertibles.get(classPath));
+        }
+
+        if (clazz == null || files.isTouched(classPath)) {
+            String module = pluginModules.get(classPath);
+            if (module == null) {
+                module = formatClass(classPath, files.getFile(classPath));
+                // An empty module is not written, but still saves us from formatting it again
+                if (module == null) module = "";
+                pluginModules.put(classPath, module);
+            } else {
+                reportDumped(1);
+            }
+            formatted.put(classPath, module);
+            hasher.putString(module, StandardCharsets.UTF_8);
+        }
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Salt of the fingerprints, covering the things that can affect every class.
+     */
+    private long getSalt() {
+        Hasher hasher = ClassFingerprint.HASH.newHasher();
+        hasher.putString(probeVersion, StandardCharsets.UTF_8);
+        hasher.putInt(FORMAT);
+
+        List<Map.Entry<ClassPath, BaseType>> predefined = new ArrayList<>(transpiler.typeConverter.predefinedTypes.entrySet());
+        predefined.sort(Comparator.comparing(entry -> entry.getKey().getClassPath()));
+        for (Map.Entry<ClassPath, BaseType> entry : predefined) {
+            hasher.putString(entry.getKey().getClassPath(), StandardCharsets.UTF_8);
+            hashTypes(hasher, List.of(entry.getValue()));
+        }
+        transpiler.rejectedClasses.stream()
+                .map(ClassPath::getClassPath)
+                .sorted()
+                .forEach(rejected -> hasher.putString(rejected, StandardCharsets.UTF_8));
+        hashPlugins(hasher);
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Plugins can change any class without touching it, e.g. by assigning types, so
+     * a plugin added, removed or updated changes every fingerprint. A plugin is told
+     * by its class, and its version by the bytecode of the class and the version of
+     * its module.
+     */
+    private void hashPlugins(Hasher hasher) {
+        List<ProbeJSPlugin> used = new ArrayList<>();
+        if (plugins == null) ProbeJSPlugin.forEachPlugin(used::add);
+        else used.addAll(plugins);
+        used.sort(Comparator.comparing(plugin -> plugin.getClass().getName()));
+        for (ProbeJSPlugin plugin : used) {
+            Class<?> pluginClass = plugin.getClass();
+            hasher.putString(pluginClass.getName(), StandardCharsets.UTF_8);
+            hasher.putLong(ClassFingerprint.of(pluginClass));
+            ModuleDescriptor descriptor = pluginClass.getModule().getDescriptor();
+            if (descriptor != null) {
+                descriptor.rawVersion().ifPresent(version -> hasher.putString(version, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static void hashTypes(Hasher hasher, Collection<BaseType> types) {
+        if (types.isEmpty()) return;
+        Declaration declaration = new Declaration();
+        for (BaseType type : types) {
+            for (ClassPath usedClassPath : type.getUsedClassPaths()) {
+                declaration.addClass(usedClassPath);
+            }
+        }
+        for (BaseType type : types) {
+            hasher.putString(type.line(declaration, BaseType.FormatType.INPUT), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Adds the convertible types to a class file, and formats it as a module.
+     *
+     * @return the formatted module, or null if the file has no class to dump
+     */
+    @Nullable
+    private String formatClass(ClassPath classPath, @Nullable TypeScriptFile output) {
+        if (output == null) return null;
+        checkCancelled();
+        try {
+            ClassDecl classDecl = output.findCode(ClassDecl.class).orElse(null);
+            if (classDecl == null) return null;
+
+            // Add all assignable types
+            // type ExportedType = ConvertibleTypes
+            // declare global {
+            //     type Type_ = ExportedType
+            // }
+            String symbol = classPath.getName() + "_";
+            String exportedSymbol = Declaration.INPUT_TEMPLATE.formatted(classPath.getName());
+            BaseType exportedType = Types.type(classPath);
+            BaseType thisType = Types.type(classPath);
+            List<String> generics = classDecl.variableTypes.stream().map(v -> v.symbol).toList();
+
+            if (generics.size() != 0) {
+                String suffix = "<%s>".formatted(String.join(", ", generics));
+                symbol = symbol + suffix;
+                exportedSymbol = exportedSymbol + suffix;
+                thisType = Types.parameterized(thisType, generics.stream().map(Types::generic).toArray(BaseType[]::new));
+                exportedType = Types.parameterized(exportedType, generics.stream().map(Types::generic).toArray(BaseType[]::new));
+            }
+            exportedType = Types.ignoreContext(exportedType, BaseType.FormatType.INPUT);
+            thisType = Types.ignoreContext(thisType, BaseType.FormatType.RETURN);
+
+            List<BaseType> allTypes = new ArrayList<>(convertibles.get(classPath));
+            allTypes.add(thisType);
+            TypeDecl convertibleType = new TypeDecl(
+                    exportedSymbol,
+                    new JSJoinedType.Union(allTypes)
+            );
+            TypeDecl globalType = new TypeDecl(
+                    symbol,
+                    exportedType
+            );
+            Wrapped.Global typeExport = new Wrapped.Global();
+            typeExport.addCode(globalType);
+            convertibleType.addComment("""
+                    Class-specific type exported by ProbeJS, use global Type_
+                    types for convenience unless there's a naming conflict.
+                    """);
+            typeExport.addComment("""
+                    Global type exported for convenience, use class-specific
+                    types if there's a naming conflict.
+                    """);
+            output.addCode(convertibleType);
+            output.addCode(typeExport);
+
+            StringWriter writer = new StringWriter();
+            output.writeAsModule(writer);
+            reportDumped(1);
+            return writer.toString();
+        } catch (Throwable t) {
+            failedClasses.add(classPath);
+            ProbeJS.LOGGER.error("Failed to format %s".formatted(classPath.getClassPath()), t);
+            return null;
+        }
+    }
+
+    /**
+     * Moves the large literal unions assigned to more than one class to a module of their
+     * own, so the classes share one alias instead of repeating the literals.
+     * <br>
+     * A union assigned to one class is left as is, it is already behind the Type$Type alias.
+     */
+    private void aliasLiteralUnions() {
+        int minSize = literalUnionAliasSize;
+        if (minSize <= 0) return;
+
+        List<ClassPath> classPaths = new ArrayList<>(convertibles.keySet());
+        classPaths.sort(Comparator.comparing(ClassPath::getClassPath));
+        Map<BaseType, Set<ClassPath>> assigned = new LinkedHashMap<>();
+        for (ClassPath classPath : classPaths) {
+            for (BaseType type : convertibles.get(classPath)) {
+                if (type instanceof JSJoinedType.Union union && union.types.size() >= minSize &&
+                        union.types.stream().allMatch(t -> t instanceof JSPrimitiveType primitive && primitive.isLiteral())) {
+                    assigned.computeIfAbsent(type, t -> new LinkedHashSet<>()).add(classPath);
+                }
+            }
+        }
+
+        Set<String> names = new HashSet<>();
+        for (Map.Entry<BaseType, Set<ClassPath>> entry : assigned.entrySet()) {
+            if (entry.getValue().size() < 2) continue;
+            String owner = entry.getValue().iterator().next().getName();
+            if (owner.startsWith("$")) owner = owner.substring(1);
+            String name = owner + "Literals";
+            for (int i = 0; !names.add(name); i++) name = "%sLiterals%d".formatted(owner, i);
+
+            ClassPath aliasPath = ClassPath.of(LITERALS_PACKAGE + name);
+            pluginModules.put(aliasPath, formatAlias(aliasPath, entry.getKey()));
+            BaseType alias = Types.type(aliasPath);
+            for (ClassPath classPath : entry.getValue()) {
+                convertibles.get(classPath).replaceAll(type -> type.equals(entry.getKey()) ? alias : type);
+            }
+        }
+    }
+
+    private static String formatAlias(ClassPath classPath, BaseType type) {
+        String name = classPath.getName();
+        String inputName = Declaration.INPUT_TEMPLATE.formatted(name);
+        return """
+                declare module %s {
+                export type %s = %s
+                export type %s = %s
+                }
+                """.formatted(
+                ProbeJS.GSON.toJson("packages/" + classPath.getTypeScriptPath()),
+                inputName, type.line(new Declaration(), BaseType.FormatType.INPUT),
+                name, inputName
+        );
+    }
+
+    /**
+     * Formats a module of a class that is not dumped, with its types being any.
+     */
+    private static String formatStub(ClassPath classPath, int typeVariables) {
+        String generics = "";
+        if (typeVariables != 0) {
+            List<String> variables = new ArrayList<>();
+            for (int i = 0; i < typeVariables; i++) variables.add("T%d = any".formatted(i));
+            generics = "<%s>".formatted(String.join(", ", variables));
+        }
+        String name = classPath.getName();
+        return """
+                declare module %s {
+                /**
+                 * Not dumped as it is beyond the discovery limits, see probejs.discoveryMaxDepth and probejs.discoveryMaxClasses.
+                 */
+                export type %s%s = any
+                export type %s%s = any
+                }
+                """.formatted(
+                ProbeJS.GSON.toJson("packages/" + classPath.getTypeScriptPath()),
+                name, generics,
+                Declaration.INPUT_TEMPLATE.formatted(name), generics
+        );
     }
 
     public void dumpGlobal() throws IOException {
-        ProbeJSPlugin.forEachPlugin(plugin -> plugin.addGlobals(this));
+        forEachPlugin("addGlobals", plugin -> plugin.addGlobals(this));
 
-        try (var writer = Files.newBufferedWriter(getGlobalFolder().resolve("index.d.ts"))) {
+        try (var ignored = time("globals"); var writer = Files.newBufferedWriter(getGlobalFolder().resolve("index.d.ts"))) {
             for (Map.Entry<String, Pair<Collection<String>, Wrapped.Global>> entry : globals.entrySet()) {
                 String identifier = entry.getKey();
                 Pair<Collection<String>, Wrapped.Global> pair = entry.getValue();
@@ -261,6 +598,17 @@ public class ScriptDump {
 
     }
 
+    /**
+     * Rewrites the globals only, the predefined types are still added since
+     * globals can be converted from Java types.
+     */
+    public void dumpGlobalsOnly() throws IOException {
+        forEachPlugin("addPredefinedTypes", transpiler::addPluginTypes);
+        try (var ignored = time("total")) {
+            dumpGlobal();
+        }
+    }
+
     public void dumpJSConfig() throws IOException {
         writeMergedConfig(scriptPath.resolve("jsconfig.json"), """
                 {
@@ -310,9 +658,12 @@ public class ScriptDump {
          *       └── globals
          */
 
-        dumpClasses();
-        dumpGlobal();
-        dumpJSConfig();
+        try (var ignored = time("total")) {
+            dumpClasses();
+            checkCancelled();
+            dumpGlobal();
+            dumpJSConfig();
+        }
 
         // Since probe can have export now, it's not really needed for global to be here
         /*
@@ -332,6 +683,39 @@ public class ScriptDump {
         */
     }
 
+    private void checkCancelled() {
+        if (job != null) job.checkCancelled();
+    }
+
+    private void reportDumped(int count) {
+        dumped.addAndGet(count);
+        if (job != null) job.progress(this);
+    }
+
+    /**
+     * Times a stage of this script dump, stage names are prefixed with the script type.
+     */
+    public DumpTelemetry.Timer time(String stage) {
+        return stage(stage).start();
+    }
+
+    public DumpTelemetry.Stage stage(String stage) {
+        return telemetry.stage("%s/%s".formatted(basePath.getFileName(), stage));
+    }
+
+    /**
+     * Calls a plugin hook on each plugin, and times each plugin separately.
+     */
+    public void forEachPlugin(String hook, Consumer<ProbeJSPlugin> consumer) {
+        Consumer<ProbeJSPlugin> timed = plugin -> {
+            try (var ignored = time("%s/%s".formatted(hook, plugin.getClass().getSimpleName()))) {
+                consumer.accept(plugin);
+            }
+        };
+        if (plugins == null) ProbeJSPlugin.forEachPlugin(timed);
+        else plugins.forEach(timed);
+    }
+
     private static void write(Path writeTo, String content) throws IOException {
         try (BufferedWriter writer = Files.newBufferedWriter(writeTo)) {
             writer.write(content);
@@ -0,0 +1,188 @@
+package moe.wolfgirl.probejs.lang.typescript;
+
+import moe.wolfgirl.probejs.DumpTelemetry;
+import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
+import moe.wolfgirl.probejs.lang.java.clazz.Clazz;
+import moe.wolfgirl.probejs.lang.transpiler.Transpiler;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class files of a dump, which are only transpiled when someone needs them.
+ * <br>
+ * Plugins see it as a normal map. Files they get or put are marked as touched,
+ * since they might have been modified by the plugin. Iterating the map hands out
+ * entries that only transpile and touch the file when its value is asked for or set.
+ */
+class TranspiledFiles extends AbstractMap<ClassPath, TypeScriptFile> {
+    private final Transpiler transpiler;
+    private final DumpTelemetry.Stage transpileStage;
+    private final Map<ClassPath, Clazz> classes = new HashMap<>();
+    private final Set<ClassPath> classPaths = new HashSet<>();
+    private final Map<ClassPath, TypeScriptFile> files = new ConcurrentHashMap<>();
+    private final Set<ClassPath> touched = ConcurrentHashMap.newKeySet();
+
+    TranspiledFiles(Transpiler transpiler, Collection<Clazz> clazzes, DumpTelemetry.Stage transpileStage) {
+        this.transpiler = transpiler;
+        this.transpileStage = transpileStage;
+        for (Clazz clazz : clazzes) {
+            if (transpiler.isRejected(clazz)) continue;
+            classes.put(clazz.classPath, clazz);
+            classPaths.add(clazz.classPath);
+        }
+    }
+
+    /**
+     * Gets the file without marking it as touched, transpiling it if needed.
+     */
+    @Nullable
+    TypeScriptFile getFile(ClassPath classPath) {
+        if (!classPaths.contains(classPath)) return null;
+        return files.computeIfAbsent(classPath, path -> {
+            try (var ignored = transpileStage.start()) {
+                transpileStage.count(1);
+                // Files replaced or removed by plugins are no longer extended as their classes
+                return transpiler.transpile(classes.get(path), classes::get);
+            }
+        });
+    }
+
+    /**
+     * @return the class of the file, or null if the file is added by plugins
+     */
+    @Nullable
+    Clazz getClazz(ClassPath classPath) {
+        return classes.get(classPath);
+    }
+
+    /**
+     * Adds files that are already formatted, they are treated as files added by plugins.
+     */
+    void addFormatted(Collection<ClassPath> formatted) {
+        for (ClassPath classPath : formatted) {
+            classPaths.add(classPath);
+            classes.remove(classPath);
+            files.remove(classPath);
+            touched.add(classPath);
+        }
+    }
+
+    boolean isTouched(ClassPath classPath) {
+        return touched.contains(classPath);
+    }
+
+    Set<ClassPath> getClassPaths() {
+        return classPaths;
+    }
+
+    @Override
+    public int size() {
+        return classPaths.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return classPaths.contains(key);
+    }
+
+    @Override
+    public TypeScriptFile get(Object key) {
+        if (!(key instanceof ClassPath classPath)) return null;
+        TypeScriptFile file = getFile(classPath);
+        if (file != null) touched.add(classPath);
+        return file;
+    }
+
+    @Override
+    public TypeScriptFile put(ClassPath key, TypeScriptFile value) {
+        classPaths.add(key);
+        classes.remove(key);
+        touched.add(key);
+        return files.put(key, value);
+    }
+
+    @Override
+    public TypeScriptFile remove(Object key) {
+        if (!(key instanceof ClassPath classPath)) return null;
+        classPaths.remove(classPath);
+        classes.remove(classPath);
+        touched.remove(classPath);
+        return files.remove(classPath);
+    }
+
+    @Override
+    public Set<Entry<ClassPath, TypeScriptFile>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<ClassPath, TypeScriptFile>> iterator() {
+                Iterator<ClassPath> iterator = classPaths.iterator();
+                return new Iterator<>() {
+                    private ClassPath last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<ClassPath, TypeScriptFile> next() {
+                        last = iterator.next();
+                        return new LazyEntry(last);
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                        classes.remove(last);
+                        touched.remove(last);
+                        files.remove(last);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return classPaths.size();
+            }
+        };
+    }
+
+    private class LazyEntry implements Entry<ClassPath, TypeScriptFile> {
+        private final ClassPath classPath;
+
+        private LazyEntry(ClassPath classPath) {
+            this.classPath = classPath;
+        }
+
+        @Override
+        public ClassPath getKey() {
+            return classPath;
+        }
+
+        @Override
+        public TypeScriptFile getValue() {
+            return get(classPath);
+        }
+
+        @Override
+        public TypeScriptFile setValue(TypeScriptFile value) {
+            touched.add(classPath);
+            classes.remove(classPath);
+            return files.put(classPath, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> entry &&
+                    classPath.equals(entry.getKey()) &&
+                    Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return classPath.hashCode() ^ Objects.hashCode(getValue());
+        }
+    }
+}
@@ -3,9 +3,12 @@ package moe.wolfgirl.probejs.lang.typescript;
 import moe.wolfgirl.probejs.ProbeJS;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.code.Code;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -39,13 +42,15 @@ public class TypeScriptFile {
     }
 
     public String format() {
-        List<String> formatted = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        emit(new CodeWriter(builder));
+        return builder.toString();
+    }
 
+    public void emit(CodeWriter writer) {
         for (Code code : codeList) {
-            formatted.addAll(code.format(declaration));
+            code.emit(declaration, writer);
         }
-
-        return String.join("\n", formatted);
     }
 
     public void write(Path writeTo) throws IOException {
@@ -54,7 +59,7 @@ public class TypeScriptFile {
         }
     }
 
-    public void write(BufferedWriter writer) throws IOException {
+    public void write(Writer writer) throws IOException {
         boolean written = false;
         for (Reference value : declaration.references.values()) {
             if (value.classPath().equals(classPath)) continue;
@@ -66,10 +71,14 @@ public class TypeScriptFile {
         }
 
         writer.write("\n");
-        writer.write(format());
+        try {
+            emit(new CodeWriter(writer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
-    public void writeAsModule(BufferedWriter writer) throws IOException {
+    public void writeAsModule(Writer writer) throws IOException {
         String modulePath = "packages/" + classPath.getTypeScriptPath();
         writer.write("declare module %s {\n".formatted(ProbeJS.GSON.toJson(modulePath)));
         this.write(writer);
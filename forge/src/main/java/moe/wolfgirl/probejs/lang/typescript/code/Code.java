@@ -4,12 +4,43 @@ import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * Override either {@link #format(Declaration)} or {@link #emit(Declaration, CodeWriter)},
+ * the other one goes through it. Overriding neither throws when the code is formatted.
+ */
 public abstract class Code {
+    private static final ThreadLocal<Set<Code>> FALLING_BACK = ThreadLocal.withInitial(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
+
     public abstract Collection<ClassPath> getUsedClassPaths();
 
-    public abstract List<String> format(Declaration declaration);
+    public List<String> format(Declaration declaration) {
+        return CodeWriter.collect(writer -> emit(declaration, writer));
+    }
+
+    public void emit(Declaration declaration, CodeWriter writer) {
+        fallBack("format or emit", () -> writer.lines(format(declaration)));
+    }
+
+    /**
+     * Runs the default of one of a pair of methods that default to each other, and
+     * throws if the code gets back to it, as then neither of them is overridden.
+     */
+    protected final void fallBack(String methods, Runnable fallback) {
+        Set<Code> codes = FALLING_BACK.get();
+        if (!codes.add(this)) {
+            throw new IllegalStateException("%s must override %s".formatted(getClass().getName(), methods));
+        }
+        try {
+            fallback.run();
+        } finally {
+            codes.remove(this);
+        }
+    }
 
     public String line(Declaration declaration) {
         return format(declaration).get(0);
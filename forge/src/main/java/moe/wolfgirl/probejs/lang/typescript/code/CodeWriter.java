@@ -0,0 +1,68 @@
+package moe.wolfgirl.probejs.lang.typescript.code;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Writes lines of code to an output, joined by line breaks, so the output is the same
+ * as joining the formatted lines with {@code "\n"}.
+ * <br>
+ * IOExceptions of the output are thrown as UncheckedIOException, unwrap them where
+ * the output is opened.
+ */
+public class CodeWriter {
+    private final Appendable output;
+    private boolean first = true;
+
+    public CodeWriter(Appendable output) {
+        this.output = output;
+    }
+
+    /**
+     * Collects what the action writes as lines.
+     */
+    public static List<String> collect(Consumer<CodeWriter> action) {
+        Lines lines = new Lines();
+        action.accept(lines);
+        return lines.lines;
+    }
+
+    public CodeWriter line(String line) {
+        write(line);
+        return this;
+    }
+
+    public CodeWriter lines(Collection<String> lines) {
+        for (String line : lines) {
+            line(line);
+        }
+        return this;
+    }
+
+    protected void write(String line) {
+        try {
+            if (!first) output.append('\n');
+            output.append(line);
+            first = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Lines extends CodeWriter {
+        private final List<String> lines = new ArrayList<>();
+
+        private Lines() {
+            super(new StringBuilder());
+        }
+
+        @Override
+        protected void write(String line) {
+            lines.add(line);
+        }
+    }
+}
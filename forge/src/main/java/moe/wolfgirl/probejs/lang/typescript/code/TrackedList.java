@@ -0,0 +1,51 @@
+package moe.wolfgirl.probejs.lang.typescript.code;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An array list that reports every change made to it, so code caching something
+ * computed from the list knows when to drop it.
+ */
+public class TrackedList<E> extends AbstractList<E> implements RandomAccess {
+    private final List<E> elements = new ArrayList<>();
+    private final Runnable onChange;
+
+    public TrackedList(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        E previous = elements.set(index, element);
+        onChange.run();
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        elements.add(index, element);
+        modCount++;
+        onChange.run();
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = elements.remove(index);
+        modCount++;
+        onChange.run();
+        return removed;
+    }
+}
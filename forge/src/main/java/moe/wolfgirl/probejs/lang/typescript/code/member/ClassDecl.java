@@ -3,6 +3,8 @@ package moe.wolfgirl.probejs.lang.typescript.code.member;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
 import moe.wolfgirl.probejs.lang.typescript.code.Code;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
+import moe.wolfgirl.probejs.lang.typescript.code.TrackedList;
 import moe.wolfgirl.probejs.lang.typescript.code.member.clazz.ConstructorBuilder;
 import moe.wolfgirl.probejs.lang.typescript.code.member.clazz.MethodBuilder;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
@@ -16,6 +18,9 @@ import java.util.stream.Collectors;
 
 /**
  * The Class name in the ClassDecl must be the name of its corresponding classpath.
+ * <br>
+ * The used class paths are cached, adding or removing members drops the cache, but
+ * changing a member, the super class or the interfaces in place needs a {@link #markDirty()}.
  */
 public class ClassDecl extends CommentableCode {
     public final String name;
@@ -27,14 +32,17 @@ public class ClassDecl extends CommentableCode {
     public boolean isAbstract = false;
     public boolean isNative = true;
 
-    public final List<FieldDecl> fields = new ArrayList<>();
-    public final List<ConstructorDecl> constructors = new ArrayList<>();
-    public final List<MethodDecl> methods = new ArrayList<>();
+    public final List<FieldDecl> fields = new TrackedList<>(this::markDirty);
+    public final List<ConstructorDecl> constructors = new TrackedList<>(this::markDirty);
+    public final List<MethodDecl> methods = new TrackedList<>(this::markDirty);
 
     /**
      * Reserved field to inject custom code body
      */
-    public final List<Code> bodyCode = new ArrayList<>();
+    public final List<Code> bodyCode = new TrackedList<>(this::markDirty);
+
+    @Nullable
+    private volatile Collection<ClassPath> usedClassPaths;
 
     public ClassDecl(String name, @Nullable BaseType superClass, List<BaseType> interfaces, List<TSVariableType> variableTypes) {
         this.name = name;
@@ -43,8 +51,43 @@ public class ClassDecl extends CommentableCode {
         this.variableTypes = variableTypes;
     }
 
+    /**
+     * Copies the class and its members, so they can be modified without affecting
+     * this one. Types and custom body code are shared.
+     */
+    public ClassDecl copy() {
+        ClassDecl copy = new ClassDecl(name, superClass, new ArrayList<>(interfaces), new ArrayList<>(variableTypes));
+        copyMembers(copy);
+        return copy;
+    }
+
+    protected void copyMembers(ClassDecl copy) {
+        copy.isAbstract = isAbstract;
+        copy.isNative = isNative;
+        copy.comments.addAll(comments);
+        for (FieldDecl field : fields) copy.fields.add(field.copy());
+        for (ConstructorDecl constructor : constructors) copy.constructors.add(constructor.copy());
+        for (MethodDecl method : methods) copy.methods.add(method.copy());
+        copy.bodyCode.addAll(bodyCode);
+        // Member copies share the types, so they use the same classes
+        copy.usedClassPaths = usedClassPaths;
+    }
+
+    /**
+     * Drops the cached used class paths.
+     */
+    public void markDirty() {
+        usedClassPaths = null;
+    }
+
     @Override
     public Collection<ClassPath> getUsedClassPaths() {
+        Collection<ClassPath> paths = usedClassPaths;
+        if (paths == null) usedClassPaths = paths = Collections.unmodifiableSet(collectUsedClassPaths());
+        return paths;
+    }
+
+    private Set<ClassPath> collectUsedClassPaths() {
         Set<ClassPath> paths = new HashSet<>();
         for (FieldDecl field : fields) {
             paths.addAll(field.getUsedClassPaths());
@@ -70,7 +113,7 @@ public class ClassDecl extends CommentableCode {
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
         // Format head - export abstract (class / interface) name<T> extends ... implements ... {
         List<String> modifiers = new ArrayList<>();
         modifiers.add("export");
@@ -92,36 +135,26 @@ public class ClassDecl extends CommentableCode {
                     .collect(Collectors.joining(", "));
             head = "%s implements %s".formatted(head, formatted);
         }
-        head = "%s {".formatted(head);
+        writer.line("%s {".formatted(head));
 
         // Format body - fields, constructors, methods
-        List<String> body = new ArrayList<>();
-
         for (FieldDecl field : fields) {
-            body.addAll(field.format(declaration));
+            field.emit(declaration, writer);
         }
-        body.add("");
+        writer.line("");
         for (ConstructorDecl constructor : constructors) {
-            body.addAll(constructor.format(declaration));
+            constructor.emit(declaration, writer);
         }
-        body.add("");
+        writer.line("");
         for (MethodDecl method : methods) {
-            body.addAll(method.format(declaration));
+            method.emit(declaration, writer);
         }
 
         // tail - custom code, }
-        List<String> tail = new ArrayList<>();
         for (Code code : bodyCode) {
-            tail.addAll(code.format(declaration));
+            code.emit(declaration, writer);
         }
-        tail.add("}");
-
-        // Concatenate them as a whole
-        List<String> formatted = new ArrayList<>();
-        formatted.add(head);
-        formatted.addAll(body);
-        formatted.addAll(tail);
-        return formatted;
+        writer.line("}");
     }
 
     public static class Builder {
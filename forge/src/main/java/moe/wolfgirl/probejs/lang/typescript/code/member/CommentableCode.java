@@ -2,6 +2,7 @@ package moe.wolfgirl.probejs.lang.typescript.code.member;
 
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
 import moe.wolfgirl.probejs.lang.typescript.code.Code;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -20,13 +21,33 @@ public abstract class CommentableCode extends Code {
         return formatted;
     }
 
-    public abstract List<String> formatRaw(Declaration declaration);
+    public void emitComments(CodeWriter writer) {
+        writer.line("/**");
+        for (String comment : comments) {
+            writer.line(" * %s".formatted(comment));
+        }
+        writer.line(" */");
+    }
+
+    /**
+     * Formats the code without comments, override either this or {@link #emitRaw(Declaration, CodeWriter)}.
+     */
+    public List<String> formatRaw(Declaration declaration) {
+        return CodeWriter.collect(writer -> emitRaw(declaration, writer));
+    }
+
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
+        fallBack("formatRaw or emitRaw", () -> writer.lines(formatRaw(declaration)));
+    }
 
     public final List<String> format(Declaration declaration) {
-        if (comments.size() == 0) return formatRaw(declaration);
-        List<String> result = new ArrayList<>(formatComments());
-        result.addAll(formatRaw(declaration));
-        return result;
+        return CodeWriter.collect(writer -> emit(declaration, writer));
+    }
+
+    @Override
+    public final void emit(Declaration declaration, CodeWriter writer) {
+        if (!comments.isEmpty()) emitComments(writer);
+        emitRaw(declaration, writer);
     }
 
     public void addComment(String... comments) {
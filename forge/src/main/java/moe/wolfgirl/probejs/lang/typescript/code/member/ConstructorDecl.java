@@ -2,6 +2,7 @@ package moe.wolfgirl.probejs.lang.typescript.code.member;
 
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 import moe.wolfgirl.probejs.lang.typescript.code.type.TSVariableType;
 
@@ -18,6 +19,16 @@ public class ConstructorDecl extends CommentableCode {
         this.params = params;
     }
 
+    public ConstructorDecl copy() {
+        ConstructorDecl copy = new ConstructorDecl(
+                new ArrayList<>(variableTypes),
+                new ArrayList<>(params)
+        );
+        copy.content = content;
+        copy.comments.addAll(comments);
+        return copy;
+    }
+
     @Override
     public Collection<ClassPath> getUsedClassPaths() {
         Set<ClassPath> paths = new HashSet<>();
@@ -31,7 +42,7 @@ public class ConstructorDecl extends CommentableCode {
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
         // Format head - constructor<T>
         String head = "constructor";
         if (variableTypes.size() != 0) {
@@ -49,6 +60,6 @@ public class ConstructorDecl extends CommentableCode {
         if (content != null) {
             tail = "%s {/** %s */}".formatted(tail, content);
         }
-        return List.of("%s%s%s".formatted(head, body, tail));
+        writer.line("%s%s%s".formatted(head, body, tail));
     }
 }
@@ -3,6 +3,7 @@ package moe.wolfgirl.probejs.lang.typescript.code.member;
 import moe.wolfgirl.probejs.ProbeJS;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 
 import java.util.ArrayList;
@@ -21,19 +22,27 @@ public class FieldDecl extends CommentableCode {
         this.type = type;
     }
 
+    public FieldDecl copy() {
+        FieldDecl copy = new FieldDecl(name, type);
+        copy.isFinal = isFinal;
+        copy.isStatic = isStatic;
+        copy.comments.addAll(comments);
+        return copy;
+    }
+
     @Override
     public Collection<ClassPath> getUsedClassPaths() {
         return type.getUsedClassPaths();
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
         List<String> modifiers = new ArrayList<>();
         if (isStatic) modifiers.add("static");
         if (isFinal) modifiers.add("readonly");
 
 
-        return List.of("%s %s: %s".formatted(
+        writer.line("%s %s: %s".formatted(
                 String.join(" ", modifiers), ProbeJS.GSON.toJson(name), type.line(declaration, BaseType.FormatType.RETURN)
         ));
     }
@@ -3,6 +3,7 @@ package moe.wolfgirl.probejs.lang.typescript.code.member;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
 import moe.wolfgirl.probejs.lang.typescript.code.Code;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 import moe.wolfgirl.probejs.lang.typescript.code.ts.MethodDeclaration;
 import moe.wolfgirl.probejs.lang.typescript.code.ts.VariableDeclaration;
 import moe.wolfgirl.probejs.lang.typescript.code.ts.Wrapped;
@@ -16,16 +17,19 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public class InterfaceDecl extends ClassDecl {
-    private final Wrapped.Namespace namespace;
-
     public InterfaceDecl(String name, @Nullable BaseType superClass, List<BaseType> interfaces, List<TSVariableType> variableTypes) {
         super(name, superClass, interfaces, variableTypes);
-        this.namespace = new Wrapped.Namespace(name);
+    }
 
+    @Override
+    public ClassDecl copy() {
+        InterfaceDecl copy = new InterfaceDecl(name, superClass, new ArrayList<>(interfaces), new ArrayList<>(variableTypes));
+        copyMembers(copy);
+        return copy;
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
         for (MethodDecl method : methods) {
             method.isInterface = true;
         }
@@ -39,11 +43,12 @@ public class InterfaceDecl extends ClassDecl {
             String formatted = interfaces.stream().map(type -> type.line(declaration)).collect(Collectors.joining(", "));
             head = "%s extends %s".formatted(head, formatted);
         }
-        head = "%s {".formatted(head);
+        writer.line("%s {".formatted(head));
 
-        // Format body - fields, constructors, methods
-        List<String> body = new ArrayList<>();
+        // Built for each format, so formatting the interface again doesn't repeat the members
+        Wrapped.Namespace namespace = new Wrapped.Namespace(name);
 
+        // Format body - fields, constructors, methods
         for (FieldDecl field : fields) {
             // if (!field.isStatic) throw new RuntimeException("Why an interface can have a non-static field?");
             // Because ProbeJS can add non-static fields to it... And it's legal in TypeScript.
@@ -52,7 +57,7 @@ public class InterfaceDecl extends ClassDecl {
                     field.type
             ));
         }
-        body.add("");
+        writer.line("");
         for (MethodDecl method : methods) {
             if (method.isStatic) namespace.addCode(new MethodDeclaration(
                     method.name,
@@ -60,7 +65,7 @@ public class InterfaceDecl extends ClassDecl {
                     method.params,
                     method.returnType
             ));
-            else body.addAll(method.format(declaration));
+            else method.emit(declaration, writer);
         }
 
         // Adds a marker in it to prevent VSCode from not recognizing the namespace to import
@@ -72,8 +77,8 @@ public class InterfaceDecl extends ClassDecl {
                 }
 
                 @Override
-                public List<String> format(Declaration declaration) {
-                    return List.of("const probejs$$marker: never");
+                public void emit(Declaration declaration, CodeWriter writer) {
+                    writer.line("const probejs$$marker: never");
                 }
             });
         }
@@ -81,25 +86,18 @@ public class InterfaceDecl extends ClassDecl {
         // Use hybrid to represent functional interfaces
         // (a: SomeClass<number>, b: SomeClass<string>): void;
         if (methods.stream().filter(method -> method.isAbstract).count() == 1) {
-            body.add("");
+            writer.line("");
             MethodDecl method = methods.get(0);
             String hybridBody = ParamDecl.formatParams(method.params, declaration);
             String returnType = method.returnType.line(declaration);
 
-            body.add("%s: %s".formatted(hybridBody, returnType));
+            writer.line("%s: %s".formatted(hybridBody, returnType));
         }
 
         // tail - }
-
-
-        // Concatenate them as a whole
-        List<String> formatted = new ArrayList<>();
-        formatted.add(head);
-        formatted.addAll(body);
-        formatted.add("}\n");
+        writer.line("}\n");
 
         // Static methods and fields, adds it even if it's empty, so auto import can still discover it
-        formatted.addAll(namespace.format(declaration));
-        return formatted;
+        namespace.emit(declaration, writer);
     }
 }
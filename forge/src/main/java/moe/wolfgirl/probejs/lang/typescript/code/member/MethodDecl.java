@@ -3,6 +3,7 @@ package moe.wolfgirl.probejs.lang.typescript.code.member;
 import moe.wolfgirl.probejs.ProbeJS;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 import moe.wolfgirl.probejs.lang.typescript.code.type.TSVariableType;
 
@@ -27,6 +28,22 @@ public class MethodDecl extends CommentableCode {
         this.returnType = returnType;
     }
 
+    public MethodDecl copy() {
+        MethodDecl copy = new MethodDecl(name, variableTypes, params, returnType);
+        copy.isAbstract = isAbstract;
+        copy.isStatic = isStatic;
+        copy.isInterface = isInterface;
+        copy.content = content;
+        copy.comments.addAll(comments);
+        return copy;
+    }
+
+    /**
+     * Replaces the type of a param, params are immutable.
+     */
+    public void setParamType(int index, BaseType type) {
+        params.set(index, params.get(index).withType(type));
+    }
 
     @Override
     public Collection<ClassPath> getUsedClassPaths() {
@@ -41,7 +58,7 @@ public class MethodDecl extends CommentableCode {
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
         // Format head - public static "name"<T, U extends A>
         List<String> modifiers = new ArrayList<>();
         if (!isInterface) modifiers.add("public");
@@ -65,6 +82,6 @@ public class MethodDecl extends CommentableCode {
             tail = "%s {/** %s */}".formatted(tail, content);
         }
 
-        return List.of("%s%s%s".formatted(head, body, tail));
+        writer.line("%s%s%s".formatted(head, body, tail));
     }
 }
@@ -9,11 +9,14 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Objects;
 
+/**
+ * Immutable, use {@link #withType(BaseType)} and replace the param to change its type.
+ */
 public final class ParamDecl {
-    public String name;
-    public BaseType type;
-    public boolean varArg;
-    public boolean optional;
+    public final String name;
+    public final BaseType type;
+    public final boolean varArg;
+    public final boolean optional;
 
     public ParamDecl(String name, BaseType type, boolean varArg, boolean optional) {
         this.name = name;
@@ -22,6 +25,10 @@ public final class ParamDecl {
         this.optional = optional;
     }
 
+    public ParamDecl withType(BaseType type) {
+        return new ParamDecl(name, type, varArg, optional);
+    }
+
     public String format(int index, Declaration declaration) {
         String result = NameUtils.isNameSafe(name) ? name : "arg%d".formatted(index);
         if (varArg) result = "...%s".formatted(result);
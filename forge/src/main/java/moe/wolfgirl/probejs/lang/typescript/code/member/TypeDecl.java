@@ -2,10 +2,10 @@ package moe.wolfgirl.probejs.lang.typescript.code.member;
 
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 
 import java.util.Collection;
-import java.util.List;
 
 /**
  * Represents a type declaration. Standalone members are always exported.
@@ -26,8 +26,8 @@ public class TypeDecl extends CommentableCode {
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
-        return List.of(
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
+        writer.line(
                 "export type %s = %s;".formatted(symbol, type.line(declaration, BaseType.FormatType.INPUT))
         );
     }
@@ -2,6 +2,7 @@ package moe.wolfgirl.probejs.lang.typescript.code.ts;
 
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 import moe.wolfgirl.probejs.lang.typescript.code.member.CommentableCode;
 import moe.wolfgirl.probejs.lang.typescript.code.member.ParamDecl;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
@@ -37,7 +38,7 @@ public class MethodDeclaration extends CommentableCode {
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
         // Format head - function name<T, U extends A>
         String head = "function %s".formatted(name);
         if (variableTypes.size() != 0) {
@@ -53,7 +54,7 @@ public class MethodDeclaration extends CommentableCode {
         // Format tail - : returnType
         String tail = ": %s".formatted(returnType.line(declaration, BaseType.FormatType.RETURN));
 
-        return List.of("%s%s%s".formatted(head, body, tail));
+        writer.line("%s%s%s".formatted(head, body, tail));
     }
 
     public static class Builder {
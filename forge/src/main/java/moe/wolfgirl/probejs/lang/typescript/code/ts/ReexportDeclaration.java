@@ -1,10 +1,9 @@
 package moe.wolfgirl.probejs.lang.typescript.code.ts;
 
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 
-import java.util.List;
-
 public class ReexportDeclaration extends VariableDeclaration {
 
     public ReexportDeclaration(String symbol, BaseType type) {
@@ -12,7 +11,7 @@ public class ReexportDeclaration extends VariableDeclaration {
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
-        return List.of("export import %s = %s".formatted(symbol, type.line(declaration, BaseType.FormatType.RETURN)));
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
+        writer.line("export import %s = %s".formatted(symbol, type.line(declaration, BaseType.FormatType.RETURN)));
     }
 }
@@ -2,11 +2,11 @@ package moe.wolfgirl.probejs.lang.typescript.code.ts;
 
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
 import moe.wolfgirl.probejs.lang.typescript.code.member.CommentableCode;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 
 import java.util.Collection;
-import java.util.List;
 
 public class VariableDeclaration extends CommentableCode {
 
@@ -24,7 +24,7 @@ public class VariableDeclaration extends CommentableCode {
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
-        return List.of("const %s: %s".formatted(symbol, type.line(declaration)));
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
+        writer.line("const %s: %s".formatted(symbol, type.line(declaration)));
     }
 }
@@ -3,19 +3,37 @@ package moe.wolfgirl.probejs.lang.typescript.code.ts;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
 import moe.wolfgirl.probejs.lang.typescript.code.Code;
+import moe.wolfgirl.probejs.lang.typescript.code.CodeWriter;
+import moe.wolfgirl.probejs.lang.typescript.code.TrackedList;
 import moe.wolfgirl.probejs.lang.typescript.code.member.CommentableCode;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
 public abstract class Wrapped extends CommentableCode {
-    public final List<Code> codes = new ArrayList<>();
+    public final List<Code> codes = new TrackedList<>(this::markDirty);
+    @Nullable
+    private volatile Collection<ClassPath> usedClassPaths;
 
     public void addCode(Code inner) {
         this.codes.add(inner);
     }
 
+    /**
+     * Drops the cached used class paths, call it after changing an inner code in place.
+     */
+    public void markDirty() {
+        usedClassPaths = null;
+    }
+
     @Override
     public Collection<ClassPath> getUsedClassPaths() {
+        Collection<ClassPath> paths = usedClassPaths;
+        if (paths == null) usedClassPaths = paths = Collections.unmodifiableSet(collectUsedClassPaths());
+        return paths;
+    }
+
+    private Set<ClassPath> collectUsedClassPaths() {
         Set<ClassPath> innerPaths = new HashSet<>();
         for (Code code : codes) {
             innerPaths.addAll(code.getUsedClassPaths());
@@ -24,12 +42,10 @@ public abstract class Wrapped extends CommentableCode {
     }
 
     @Override
-    public List<String> formatRaw(Declaration declaration) {
-        List<String> lines = new ArrayList<>();
+    public void emitRaw(Declaration declaration, CodeWriter writer) {
         for (Code code : codes) {
-            lines.addAll(code.format(declaration));
+            code.emit(declaration, writer);
         }
-        return lines;
     }
 
     public boolean isEmpty() {
@@ -43,12 +59,10 @@ public abstract class Wrapped extends CommentableCode {
 
     public static class Global extends Wrapped {
         @Override
-        public List<String> formatRaw(Declaration declaration) {
-            List<String> lines = new ArrayList<>();
-            lines.add("declare global {");
-            lines.addAll(super.formatRaw(declaration));
-            lines.add("}");
-            return lines;
+        public void emitRaw(Declaration declaration, CodeWriter writer) {
+            writer.line("declare global {");
+            super.emitRaw(declaration, writer);
+            writer.line("}");
         }
     }
 
@@ -60,12 +74,10 @@ public abstract class Wrapped extends CommentableCode {
         }
 
         @Override
-        public List<String> formatRaw(Declaration declaration) {
-            List<String> lines = new ArrayList<>();
-            lines.add("export namespace %s {".formatted(nameSpace));
-            lines.addAll(super.formatRaw(declaration));
-            lines.add("}");
-            return lines;
+        public void emitRaw(Declaration declaration, CodeWriter writer) {
+            writer.line("export namespace %s {".formatted(nameSpace));
+            super.emitRaw(declaration, writer);
+            writer.line("}");
         }
     }
 }
@@ -12,8 +12,16 @@ public abstract class BaseType extends Code {
 
     public abstract List<String> format(Declaration declaration, FormatType input);
 
+    @Override
+    public String line(Declaration declaration) {
+        return line(declaration, FormatType.RETURN);
+    }
+
+    /**
+     * Formats the type, once per declaration.
+     */
     public String line(Declaration declaration, FormatType input) {
-        return format(declaration, input).get(0);
+        return declaration.getLine(this, input);
     }
 
     // Stuffs for convenience
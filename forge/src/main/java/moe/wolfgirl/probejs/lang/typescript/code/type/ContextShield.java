@@ -7,8 +7,8 @@ import java.util.Collection;
 import java.util.List;
 
 public class ContextShield extends BaseType {
-    private final BaseType inner;
-    private final FormatType formatType;
+    public final BaseType inner;
+    public final FormatType formatType;
 
     public ContextShield(BaseType inner, FormatType formatType) {
         this.inner = inner;
@@ -22,6 +22,6 @@ public class ContextShield extends BaseType {
 
     @Override
     public List<String> format(Declaration declaration, FormatType input) {
-        return inner.format(declaration, formatType);
+        return List.of(inner.line(declaration, formatType));
     }
 }
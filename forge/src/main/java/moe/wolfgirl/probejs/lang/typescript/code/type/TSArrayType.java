@@ -7,10 +7,12 @@ import java.util.Collection;
 import java.util.List;
 
 public class TSArrayType extends BaseType {
-    public BaseType component;
+    public final BaseType component;
+    private final int hash;
 
     public TSArrayType(BaseType component) {
         this.component = component;
+        this.hash = component.hashCode() * 31 + 1;
     }
 
     @Override
@@ -22,4 +24,16 @@ public class TSArrayType extends BaseType {
     public List<String> format(Declaration declaration, FormatType input) {
         return List.of("(%s)[]".formatted(component.line(declaration, input)));
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof TSArrayType that && getClass() == that.getClass() &&
+                hash == that.hash && component.equals(that.component);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
 }
@@ -1,5 +1,7 @@
 package moe.wolfgirl.probejs.lang.typescript.code.type;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
 
@@ -7,19 +9,46 @@ import java.util.Collection;
 import java.util.List;
 
 public class TSClassType extends BaseType {
-    public ClassPath classPath;
+    private static final Interner<TSClassType> INTERNER = Interners.newWeakInterner();
+
+    public final ClassPath classPath;
+    private final List<ClassPath> usedClassPaths;
 
     public TSClassType(ClassPath classPath) {
         this.classPath = classPath;
+        this.usedClassPaths = List.of(classPath);
+    }
+
+    /**
+     * Gets the shared instance of the class, which is dropped once nothing uses it.
+     */
+    public static TSClassType of(ClassPath classPath) {
+        return INTERNER.intern(new TSClassType(classPath));
     }
 
     @Override
     public Collection<ClassPath> getUsedClassPaths() {
-        return List.of(classPath);
+        return usedClassPaths;
     }
 
     @Override
     public List<String> format(Declaration declaration, FormatType input) {
-        return List.of(declaration.getSymbol(classPath, input == FormatType.INPUT));
+        return List.of(line(declaration, input));
+    }
+
+    @Override
+    public String line(Declaration declaration, FormatType input) {
+        return declaration.getSymbol(classPath, input == FormatType.INPUT);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof TSClassType that && getClass() == that.getClass() && classPath.equals(that.classPath);
+    }
+
+    @Override
+    public int hashCode() {
+        return classPath.hashCode();
     }
 }
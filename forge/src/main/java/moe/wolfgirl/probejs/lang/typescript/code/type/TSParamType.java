@@ -10,12 +10,14 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 public class TSParamType extends BaseType {
-    public BaseType baseType;
+    public final BaseType baseType;
     public final List<BaseType> params;
+    private final int hash;
 
     public TSParamType(BaseType baseType, List<BaseType> params) {
         this.baseType = baseType;
-        this.params = params;
+        this.params = List.copyOf(params);
+        this.hash = baseType.hashCode() * 31 + this.params.hashCode();
     }
 
     @Override
@@ -38,4 +40,16 @@ public class TSParamType extends BaseType {
                 )
         );
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof TSParamType that && getClass() == that.getClass() &&
+                hash == that.hash && baseType.equals(that.baseType) && params.equals(that.params);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
 }
@@ -6,14 +6,18 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 public class TSVariableType extends BaseType {
     public final String symbol;
-    public BaseType extendsType;
+    @Nullable
+    public final BaseType extendsType;
+    private final int hash;
 
     public TSVariableType(String symbol, @Nullable BaseType extendsType) {
         this.symbol = symbol;
         this.extendsType = extendsType == Types.ANY ? null : extendsType;
+        this.hash = symbol.hashCode() * 31 + Objects.hashCode(this.extendsType);
     }
 
     @Override
@@ -29,4 +33,16 @@ public class TSVariableType extends BaseType {
                     "%s extends %s".formatted(symbol, extendsType.line(declaration, FormatType.RETURN));
         });
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof TSVariableType that && getClass() == that.getClass() &&
+                hash == that.hash && symbol.equals(that.symbol) && Objects.equals(extendsType, that.extendsType);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
 }
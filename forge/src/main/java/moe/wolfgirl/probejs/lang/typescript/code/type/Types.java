@@ -9,17 +9,20 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.function.BiFunction;
 
+/**
+ * Primitives, literals and class types made here are shared instances.
+ */
 public interface Types {
-    JSPrimitiveType ANY = new JSPrimitiveType("any");
-    JSPrimitiveType BOOLEAN = new JSPrimitiveType("boolean");
-    JSPrimitiveType NUMBER = new JSPrimitiveType("number");
-    JSPrimitiveType STRING = new JSPrimitiveType("string");
-    JSPrimitiveType NEVER = new JSPrimitiveType("never");
-    JSPrimitiveType UNKNOWN = new JSPrimitiveType("unknown");
-    JSPrimitiveType VOID = new JSPrimitiveType("void");
-    JSPrimitiveType THIS = new JSPrimitiveType("this");
-    JSPrimitiveType OBJECT = new JSPrimitiveType("object");
-    JSPrimitiveType NULL = new JSPrimitiveType("null");
+    JSPrimitiveType ANY = JSPrimitiveType.of("any");
+    JSPrimitiveType BOOLEAN = JSPrimitiveType.of("boolean");
+    JSPrimitiveType NUMBER = JSPrimitiveType.of("number");
+    JSPrimitiveType STRING = JSPrimitiveType.of("string");
+    JSPrimitiveType NEVER = JSPrimitiveType.of("never");
+    JSPrimitiveType UNKNOWN = JSPrimitiveType.of("unknown");
+    JSPrimitiveType VOID = JSPrimitiveType.of("void");
+    JSPrimitiveType THIS = JSPrimitiveType.of("this");
+    JSPrimitiveType OBJECT = JSPrimitiveType.of("object");
+    JSPrimitiveType NULL = JSPrimitiveType.of("null");
 
     /**
      * Returns a literal type of the input if it's something OK in TS,
@@ -30,7 +33,7 @@ public interface Types {
     static JSPrimitiveType literal(Object content) {
         if (!(content instanceof String || content instanceof Number || content instanceof Boolean))
             return ANY;
-        return new JSPrimitiveType(ProbeJS.GSON.toJson(content));
+        return JSPrimitiveType.of(ProbeJS.GSON.toJson(content));
     }
 
     /**
@@ -38,7 +41,7 @@ public interface Types {
      * keywords/types not covered, e.g. InstanceType.
      */
     static JSPrimitiveType primitive(String type) {
-        return new JSPrimitiveType(type);
+        return JSPrimitiveType.of(type);
     }
 
     static JSArrayType arrayOf(BaseType... types) {
@@ -51,7 +54,8 @@ public interface Types {
 
     static BaseType or(BaseType... types) {
         if (types.length == 0) return NEVER;
-        return new JSJoinedType.Union(Arrays.stream(types).toList());
+        JSJoinedType.Union union = new JSJoinedType.Union(Arrays.stream(types).toList());
+        return union.types.size() == 1 ? union.types.get(0) : union;
     }
 
     static TSParamType parameterized(BaseType base, BaseType... params) {
@@ -79,19 +83,19 @@ public interface Types {
      * Otherwise, use typeMaybeGeneric
      */
     static TSClassType type(Class<?> clazz) {
-        return type(new ClassPath(clazz));
+        return type(ClassPath.of(clazz));
     }
 
     static TSClassType type(ClassPath classPath) {
-        return new TSClassType(classPath);
+        return TSClassType.of(classPath);
     }
 
     static JSTypeOfType typeOf(Class<?> clazz) {
-        return typeOf(new ClassPath(clazz));
+        return typeOf(ClassPath.of(clazz));
     }
 
     static JSTypeOfType typeOf(ClassPath classPath) {
-        return typeOf(new TSClassType(classPath));
+        return typeOf(type(classPath));
     }
 
     static JSTypeOfType typeOf(BaseType classType) {
@@ -12,9 +12,11 @@ import java.util.stream.Collectors;
 
 public class JSArrayType extends BaseType {
     public final List<BaseType> components;
+    private final int hash;
 
     public JSArrayType(List<BaseType> components) {
-        this.components = components;
+        this.components = List.copyOf(components);
+        this.hash = this.components.hashCode();
     }
 
     @Override
@@ -34,4 +36,16 @@ public class JSArrayType extends BaseType {
                         .collect(Collectors.joining(", ")))
         );
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof JSArrayType that && getClass() == that.getClass() &&
+                hash == that.hash && components.equals(that.components);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
 }
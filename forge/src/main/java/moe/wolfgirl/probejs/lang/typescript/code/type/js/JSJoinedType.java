@@ -2,21 +2,47 @@ package moe.wolfgirl.probejs.lang.typescript.code.type.js;
 
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
-import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
+import moe.wolfgirl.probejs.lang.typescript.code.type.*;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+/**
+ * Joined types of the same kind are flattened into one, and the duplicates are dropped.
+ */
 public abstract class JSJoinedType extends BaseType {
+    private static final Pattern SINGLE_TERM = Pattern.compile("-?[\\w$.]+|\"(?:[^\"\\\\]|\\\\.)*\"|`(?:[^`\\\\]|\\\\.)*`");
+
     public final String delimiter;
     public final List<BaseType> types;
+    private final int hash;
 
     protected JSJoinedType(String delimiter, List<BaseType> types) {
         this.delimiter = " %s ".formatted(delimiter);
-        this.types = types;
+        this.types = flatten(getClass(), types);
+        this.hash = delimiter.hashCode() * 31 + this.types.hashCode();
+    }
+
+    private static List<BaseType> flatten(Class<?> kind, List<BaseType> types) {
+        Set<BaseType> flattened = new LinkedHashSet<>();
+        for (BaseType type : types) {
+            // Joined types are flattened when they are made, so one level is enough
+            if (type.getClass() == kind) flattened.addAll(((JSJoinedType) type).types);
+            else flattened.add(type);
+        }
+        return List.copyOf(flattened);
+    }
+
+    /**
+     * Whether the type is a single term in TypeScript, so it can be joined without parentheses.
+     */
+    private static boolean isSingleTerm(BaseType type, FormatType input) {
+        if (type instanceof ContextShield shield) return isSingleTerm(shield.inner, shield.formatType);
+        if (type instanceof JSPrimitiveType primitive) return SINGLE_TERM.matcher(primitive.content).matches();
+        if (type instanceof TSVariableType) return input != FormatType.VARIABLE;
+        return type instanceof TSClassType || type instanceof TSParamType || type instanceof TSArrayType ||
+                type instanceof JSArrayType || type instanceof JSObjectType;
     }
 
 
@@ -33,11 +59,25 @@ public abstract class JSJoinedType extends BaseType {
     public List<String> format(Declaration declaration, FormatType input) {
         return List.of(
                 types.stream()
-                        .map(type -> "(%s)".formatted(type.line(declaration, input)))
+                        .map(type -> isSingleTerm(type, input) ?
+                                type.line(declaration, input) :
+                                "(%s)".formatted(type.line(declaration, input)))
                         .collect(Collectors.joining(delimiter))
         );
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof JSJoinedType that && getClass() == that.getClass() &&
+                hash == that.hash && types.equals(that.types);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     public static class Union extends JSJoinedType {
         public Union(List<BaseType> types) {
             super("|", types);
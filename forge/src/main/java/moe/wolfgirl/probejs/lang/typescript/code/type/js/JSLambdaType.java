@@ -14,7 +14,7 @@ public class JSLambdaType extends BaseType {
     public final BaseType returnType;
 
     public JSLambdaType(List<ParamDecl> params, BaseType returnType) {
-        this.params = params;
+        this.params = List.copyOf(params);
         this.returnType = returnType;
     }
 
@@ -11,7 +11,7 @@ public class JSObjectType extends BaseType {
     public final Map<String, BaseType> members;
 
     public JSObjectType(Map<String, BaseType> members) {
-        this.members = members;
+        this.members = Collections.unmodifiableMap(members);
     }
 
     @Override
@@ -1,5 +1,7 @@
 package moe.wolfgirl.probejs.lang.typescript.code.type.js;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import moe.wolfgirl.probejs.lang.java.clazz.ClassPath;
 import moe.wolfgirl.probejs.lang.typescript.Declaration;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
@@ -9,6 +11,7 @@ import java.util.List;
 import java.util.Objects;
 
 public class JSPrimitiveType extends BaseType {
+    private static final Interner<JSPrimitiveType> INTERNER = Interners.newWeakInterner();
 
     public final String content;
 
@@ -16,6 +19,24 @@ public class JSPrimitiveType extends BaseType {
         this.content = content;
     }
 
+    /**
+     * Gets the shared instance of the content, the constants in Types included.
+     * Instances nothing uses anymore are dropped.
+     */
+    public static JSPrimitiveType of(String content) {
+        return INTERNER.intern(new JSPrimitiveType(content));
+    }
+
+
+    /**
+     * Whether the type is a string, number or boolean literal.
+     */
+    public boolean isLiteral() {
+        if (content.isEmpty()) return false;
+        char first = content.charAt(0);
+        return first == '"' || first == '-' || Character.isDigit(first) ||
+                content.equals("true") || content.equals("false");
+    }
 
     @Override
     public Collection<ClassPath> getUsedClassPaths() {
@@ -27,6 +48,11 @@ public class JSPrimitiveType extends BaseType {
         return List.of(content);
     }
 
+    @Override
+    public String line(Declaration declaration, FormatType input) {
+        return content;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -37,6 +63,6 @@ public class JSPrimitiveType extends BaseType {
 
     @Override
     public int hashCode() {
-        return Objects.hash(content);
+        return content.hashCode();
     }
 }
@@ -32,4 +32,15 @@ public class JSTypeOfType extends BaseType {
                 "typeof %s".formatted(inner.line(declaration, FormatType.RETURN))
         );
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof JSTypeOfType that && getClass() == that.getClass() && inner.equals(that.inner);
+    }
+
+    @Override
+    public int hashCode() {
+        return inner.hashCode() * 31 + 2;
+    }
 }
@@ -7,23 +7,24 @@ import moe.wolfgirl.probejs.lang.typescript.code.member.MethodDecl;
 import moe.wolfgirl.probejs.lang.typescript.code.member.ParamDecl;
 import moe.wolfgirl.probejs.lang.typescript.code.type.BaseType;
 
-import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 public class DocUtils {
-    public static void applyParam(TypeScriptFile file, Predicate<MethodDecl> test, int index, Consumer<ParamDecl> effect) {
+    public static void applyParam(TypeScriptFile file, Predicate<MethodDecl> test, int index, UnaryOperator<ParamDecl> effect) {
         if (file == null) return;
         file.findCode(ClassDecl.class).ifPresent(classDecl -> {
             for (MethodDecl method : classDecl.methods) {
                 if (test.test(method)) {
-                    effect.accept(method.params.get(index));
+                    method.params.set(index, effect.apply(method.params.get(index)));
                 }
             }
+            classDecl.markDirty();
         });
     }
 
     public static void replaceParamType(TypeScriptFile file, Predicate<MethodDecl> test, int index, BaseType toReplace) {
-        applyParam(file, test, index, decl -> decl.type = toReplace);
+        applyParam(file, test, index, decl -> decl.withType(toReplace));
         for (ClassPath usedClassPath : toReplace.getUsedClassPaths()) {
             file.declaration.addClass(usedClassPath);
         }
@@ -1,38 +1,74 @@
 package moe.wolfgirl.probejs.utils;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import dev.latvian.mods.kubejs.KubeJS;
 import dev.latvian.mods.kubejs.script.ScriptManager;
 import dev.latvian.mods.rhino.JavaMembers;
 import dev.latvian.mods.rhino.mod.util.RemappingHelper;
 import dev.latvian.mods.rhino.util.Remapper;
+import moe.wolfgirl.probejs.ProbeJS;
 
 import java.lang.reflect.Constructor;
 import java.util.Collection;
+import java.util.List;
 
 public class RemapperUtils {
 
-    private static final Remapper RUNTIME = RemappingHelper.getMinecraftRemapper();
+    private static final Supplier<Remapper> RUNTIME = Suppliers.memoize(() -> {
+        try {
+            return RemappingHelper.getMinecraftRemapper();
+        } catch (Throwable e) {
+            // Outside the game, e.g. in snapshot dumps, where class names are not obfuscated anyway
+            ProbeJS.LOGGER.warn("Minecraft remapper is not available, class names will not be remapped");
+            return null;
+        }
+    });
+
+    private static final ClassValue<String> REMAPPED_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            Remapper remapper = RUNTIME.get();
+            if (remapper == null) return type.getName();
+            String remapped = remapper.getMappedClass(type);
+            return remapped.equals("") ? type.getName() : remapped;
+        }
+    };
+
+    /**
+     * The members of each class accessible from scripts, looked up once and shared by all dumps.
+     */
+    private static final ClassValue<Members> MEMBERS = new ClassValue<>() {
+        @Override
+        protected Members computeValue(Class<?> type) {
+            ScriptManager scriptManager = KubeJS.getStartupScriptManager();
+            JavaMembers members = JavaMembers.lookupClass(scriptManager.context, scriptManager.topLevelScope, type, type, false);
+            return new Members(
+                    List.copyOf(members.getAccessibleMethods(scriptManager.context, false)),
+                    List.copyOf(members.getAccessibleFields(scriptManager.context, false)),
+                    List.copyOf(members.getAccessibleConstructors())
+            );
+        }
+    };
 
     public static String getRemappedClassName(Class<?> clazz) {
-        String remapped = RUNTIME.getMappedClass(clazz);
-        return remapped.equals("") ? clazz.getName() : remapped;
+        return REMAPPED_NAMES.get(clazz);
     }
 
     public static Collection<JavaMembers.MethodInfo> getMethods(Class<?> from) {
-        ScriptManager scriptManager = KubeJS.getStartupScriptManager();
-        JavaMembers members = JavaMembers.lookupClass(scriptManager.context, scriptManager.topLevelScope, from, from, false);
-        return members.getAccessibleMethods(scriptManager.context, false);
+        return MEMBERS.get(from).methods;
     }
 
     public static Collection<JavaMembers.FieldInfo> getFields(Class<?> from) {
-        ScriptManager scriptManager = KubeJS.getStartupScriptManager();
-        JavaMembers members = JavaMembers.lookupClass(scriptManager.context, scriptManager.topLevelScope, from, from, false);
-        return members.getAccessibleFields(scriptManager.context, false);
+        return MEMBERS.get(from).fields;
     }
 
     public static Collection<Constructor<?>> getConstructors(Class<?> from) {
-        ScriptManager scriptManager = KubeJS.getStartupScriptManager();
-        JavaMembers members = JavaMembers.lookupClass(scriptManager.context, scriptManager.topLevelScope, from, from, false);
-        return members.getAccessibleConstructors();
+        return MEMBERS.get(from).constructors;
+    }
+
+    private record Members(List<JavaMembers.MethodInfo> methods,
+                           List<JavaMembers.FieldInfo> fields,
+                           List<Constructor<?>> constructors) {
     }
 }
@@ -19,7 +19,7 @@ public class Require extends BaseFunction {
     public Object call(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
         String result = (String) Context.jsToJava(cx, args[0], String.class);
         String[] parts = result.split("/", 2);
-        ClassPath path = new ClassPath(Arrays.stream(parts[1].split("/")).toList());
+        ClassPath path = ClassPath.of(Arrays.stream(parts[1].split("/")).toList());
 
         var loaded = innerWrapper.tryLoadClass(path.getClassPathJava());
         return new RequireWrapper(path, loaded == null ? Undefined.instance : loaded);